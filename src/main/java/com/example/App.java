@@ -2,17 +2,32 @@ package com.example;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.datastream.SingleOutputStreamOperator;
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
 import org.apache.flink.table.api.EnvironmentSettings;
-import org.apache.flink.table.api.TableEnvironment;
+import org.apache.flink.table.api.Schema;
+import org.apache.flink.table.api.StatementSet;
+import org.apache.flink.table.api.Table;
+import org.apache.flink.table.api.TableResult;
+import org.apache.flink.table.api.bridge.java.StreamTableEnvironment;
+import org.apache.flink.table.catalog.Column;
+import org.apache.flink.table.connector.ChangelogMode;
+import org.apache.flink.table.types.DataType;
+import org.apache.flink.types.Row;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 /**
@@ -22,6 +37,9 @@ import java.util.*;
 public class App {
     private static final Logger LOG = LoggerFactory.getLogger(App.class);
     private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String CLAIM_CHECK_PREFIX = "claim-check:";
+    // Every partition opens its own source table and read session
+    private static final int MAX_PARTITIONS = 366;
 
     public static void main(String[] args) throws Exception {
         LOG.info("Starting BigQuery to Kafka Flink Pipeline with externalized configuration");
@@ -35,54 +53,371 @@ public class App {
 
         Properties config = loadConfiguration(configPath);
         
-        // Load schema definition
+        // Load schema definitions: a file, a directory of *.json files or a comma-separated list
         String schemaPath = config.getProperty("schema.definition.path");
-        LOG.info("Loading schema definition from: {}", schemaPath);
-        SchemaDefinition schema = loadSchemaDefinition(schemaPath);
+        LOG.info("Loading schema definitions from: {}", schemaPath);
+        List<SchemaDefinition> schemas = loadSchemaDefinitions(schemaPath);
+        BigQueryTableStats.applyAdaptiveParallelism(config, schemas);
 
-        // Setup Flink Environment
-        final StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        // Setup Flink Environment with runtime settings from config
+        Configuration flinkConfig = RuntimeConfiguration.fromProperties(config);
+        final StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment(flinkConfig);
         
-        // Determine execution mode from config
-        String executionMode = config.getProperty("flink.execution.mode", "batch");
-        final TableEnvironment tEnv;
+        // Determine execution mode from config; the table environment is bridged
+        // to env so DataStream-level tuning reaches the generated pipeline
+        final StreamTableEnvironment tEnv;
         
-        if ("streaming".equalsIgnoreCase(executionMode)) {
-            tEnv = TableEnvironment.create(
-                EnvironmentSettings.newInstance().inStreamingMode().build()
+        if (RuntimeConfiguration.isStreaming(config)) {
+            tEnv = StreamTableEnvironment.create(env,
+                EnvironmentSettings.newInstance().inStreamingMode().withConfiguration(flinkConfig).build()
             );
             LOG.info("Flink configured in STREAMING mode");
         } else {
-            tEnv = TableEnvironment.create(
-                EnvironmentSettings.newInstance().inBatchMode().build()
+            tEnv = StreamTableEnvironment.create(env,
+                EnvironmentSettings.newInstance().inBatchMode().withConfiguration(flinkConfig).build()
             );
             LOG.info("Flink configured in BATCH mode");
         }
+        NumericParseFunctions.register(tEnv);
+        FieldSizeFunctions.register(tEnv);
+        boolean rateLimited = RateLimitFunction.register(tEnv, config, sourceSubtasks(config, schemas));
+        schemas.forEach(schema -> schema.setRateLimited(rateLimited));
 
-        // Create BigQuery Source Table with dynamic schema
-        String bigQuerySourceDDL = generateBigQuerySourceDDL(config, schema);
-        LOG.debug("BigQuery Source DDL:\n{}", bigQuerySourceDDL);
-        tEnv.executeSql(bigQuerySourceDDL);
-        LOG.info("BigQuery Source Table created: {}", schema.getSourceTableName());
+        // Its HTTP dispatcher thread keeps the JVM alive until stopped
+        EmbeddedSchemaRegistry schemaRegistry = EmbeddedSchemaRegistry.startIfConfigured(config);
+        try {
+            if (schemas.size() == 1 && schemas.get(0).isPartitionOrdered()) {
+                executePartitionsInOrder(tEnv, config, schemas.get(0));
+                return;
+            }
+            
+            // A cached plan skips DDL generation and query optimization entirely
+            CompiledPlanCache planCache = CompiledPlanCache.create(config, schemas);
+            TableResult result = planCache != null ? planCache.executeCached(tEnv) : null;
+            
+            List<HighWaterMarkStore> highWaterMarks = new ArrayList<>();
+            if (result == null) {
+                // All tables share one job: one submission, shared slots and network buffers
+                StatementSet statements = tEnv.createStatementSet();
+                for (SchemaDefinition schema : schemas) {
+                    HighWaterMarkStore highWaterMark = addPipeline(tEnv, config, schema, statements);
+                    if (highWaterMark != null) {
+                        highWaterMarks.add(highWaterMark);
+                    }
+                }
+                
+                result = planCache != null ? planCache.compileAndExecute(statements) : statements.execute();
+            }
+            LOG.info("Flink pipeline submitted successfully: {} table(s) -> Kafka", schemas.size());
+            
+            if (!highWaterMarks.isEmpty()) {
+                // New marks are only committed once every table delta reached Kafka
+                result.await();
+                for (HighWaterMarkStore highWaterMark : highWaterMarks) {
+                    highWaterMark.commit();
+                }
+            }
+            
+            if (schemaRegistry != null) {
+                // The local job resolves schemas until it finishes
+                result.await();
+            }
+        } catch (Exception e) {
+            LOG.error("Error executing pipeline", e);
+            throw e;
+        } finally {
+            if (schemaRegistry != null) {
+                schemaRegistry.stop();
+            }
+        }
+    }
+
+    /**
+     * Register source and sink tables of one schema and add its INSERTs to the statement set.
+     * Returns the high-water mark store to commit after the job, or null for full reads.
+     */
+    private static HighWaterMarkStore addPipeline(StreamTableEnvironment tEnv, Properties config,
+                                                  SchemaDefinition schema, StatementSet statements)
+            throws IOException {
+        // Incremental mode reads only rows above the last committed high-water mark
+        HighWaterMarkStore highWaterMarks = null;
+        if (schema.getIncrementalColumn() != null) {
+            if (RuntimeConfiguration.isStreaming(config)) {
+                throw new IllegalArgumentException("Incremental reads require flink.execution.mode=batch");
+            }
+            highWaterMarks = new HighWaterMarkStore(config, schema.getSourceTableName());
+            schema.setIncrementalLowerBound(highWaterMarks.read());
+        }
+
+        // Create BigQuery Source Table(s) with dynamic schema
+        registerSourceTables(tEnv, config, schema);
 
         // Create Kafka Sink Table with dynamic schema
+        registerSinkTable(tEnv, config, schema);
+        writeValueSchema(config, schema);
+
+        // Generate data transformation SQL
+        schema.setRecordSizeMetrics(Boolean.parseBoolean(
+            config.getProperty("kafka.sink.record.size.metrics", "false").trim()));
+        schema.setTransformErrorPolicy(transformErrorPolicy(config));
+        boolean upsertDiff = isUpsertDiff(config);
+        if (upsertDiff || isChangeDetection(config)) {
+            rejectSideOutputs(schema, upsertDiff ? "kafka.sink.upsert.diff" : "change.detection=hash");
+        }
+        if (upsertDiff) {
+            addSnapshotDiff(tEnv, config, schema, statements);
+        } else if (isChangeDetection(config)) {
+            addChangeDetection(tEnv, config, schema, statements);
+        } else {
+            String insertSQL = generateInsertSQL(schema);
+            LOG.debug("Insert SQL:\n{}", insertSQL);
+            statements.addInsertSql(insertSQL);
+        }
+        addSizeBudgetOutputs(tEnv, config, schema, statements);
+        addConversionDeadLetters(tEnv, config, schema, statements);
+        
+        if (highWaterMarks != null) {
+            tEnv.executeSql(generateHighWaterMarkSinkDDL(schema, highWaterMarks.getPendingDir().toString()));
+            statements.addInsertSql(generateHighWaterMarkSQL(schema));
+        }
+        return highWaterMarks;
+    }
+
+    /**
+     * Claim-check and dead-letter outputs are separate INSERTs, each with its
+     * own BigQuery scan outside the stream that is diffed or hashed. Reject
+     * them with the diff and change detection instead.
+     */
+    private static void rejectSideOutputs(SchemaDefinition schema, String mode) {
+        for (ColumnDefinition col : schema.getColumns()) {
+            if (col.hasSizeBudget() && Arrays.asList("claim-check", "dead-letter").contains(col.getOversize())) {
+                throw new IllegalArgumentException(mode + " cannot be combined with \"oversize\": \""
+                    + col.getOversize() + "\" (column " + col.getName() + ")");
+            }
+        }
+        if ("dead-letter".equals(schema.getTransformErrorPolicy())) {
+            throw new IllegalArgumentException(mode + " cannot be combined with transform.error.policy=dead-letter");
+        }
+    }
+
+    /**
+     * Write only the difference to the previous sync: the previous snapshot is
+     * replayed from the compacted target topic, compared per key with the
+     * current rows, and changed rows plus deletes (tombstones) go to the
+     * upsert-kafka sink.
+     */
+    private static void addSnapshotDiff(StreamTableEnvironment tEnv, Properties config,
+                                        SchemaDefinition schema, StatementSet statements) {
+        // Every key missing from the current rows is tombstoned, so no row still
+        // present in BigQuery may be filtered out before the comparison
+        if (schema.getPartitions() != null) {
+            throw new IllegalArgumentException("kafka.sink.upsert.diff reads the whole table; remove the partition"
+                + " selection of " + schema.getSinkTableName());
+        }
+        String previousTable = schema.getSinkTableName() + "_previous";
+        String previousDDL = generatePreviousSnapshotDDL(config, schema, previousTable);
+        LOG.debug("Previous snapshot DDL:\n{}", previousDDL);
+        tEnv.executeSql(previousDDL);
+        
+        String selectSQL = generateSelectSQL(schema, schema.getSourceTableName());
+        LOG.debug("Snapshot SQL:\n{}", selectSQL);
+        Table current = tEnv.sqlQuery(selectSQL);
+        DataStream<Row> currentRows = tEnv.toDataStream(current);
+        DataStream<Row> previousRows = tEnv.toChangelogStream(tEnv.from(previousTable));
+        
+        SnapshotDiffFunction.KeyFields key = new SnapshotDiffFunction.KeyFields(keyPositions(schema));
+        DataStream<Row> changes = currentRows.connect(previousRows)
+            .keyBy(key, key)
+            .process(new SnapshotDiffFunction(currentRows.getType(), previousRows.getType()), currentRows.getType())
+            .name("Snapshot diff: " + schema.getSinkTableName());
+        
+        statements.add(tEnv.fromChangelogStream(changes, sinkSchema(schema, current, true), ChangelogMode.upsert())
+            .insertInto(schema.getSinkTableName()));
+        LOG.info("Snapshot diff enabled for {}: only changed rows and tombstones are written", schema.getSinkTableName());
+    }
+
+    /**
+     * Drop rows whose content hash per key is unchanged since the previous
+     * sync. The hashes of the previous syncs are replayed from the compacted
+     * change.detection.topic, compared per key with the current rows, and the
+     * hashes of the rows written are sent back to that topic in the same job.
+     */
+    private static void addChangeDetection(StreamTableEnvironment tEnv, Properties config,
+                                           SchemaDefinition schema, StatementSet statements) {
+        String hashTable = schema.getSinkTableName() + "_hashes";
+        String hashDDL = generateHashStoreDDL(config, schema, hashTable);
+        LOG.debug("Content hash DDL:\n{}", hashDDL);
+        tEnv.executeSql(hashDDL);
+        
+        String selectSQL = generateSelectSQL(schema, schema.getSourceTableName());
+        LOG.debug("Change detection SQL:\n{}", selectSQL);
+        Table current = tEnv.sqlQuery(selectSQL);
+        DataStream<Row> rows = tEnv.toDataStream(current);
+        DataStream<Row> storedHashes = tEnv.toChangelogStream(tEnv.from(hashTable));
+        
+        SingleOutputStreamOperator<Row> changed = rows.connect(storedHashes)
+            .keyBy(new SnapshotDiffFunction.KeyFields(keyPositions(schema)), new ChangeDetectionFunction.HashKey())
+            .process(new ChangeDetectionFunction(rows.getType()), rows.getType())
+            .name("Change detection: " + schema.getSinkTableName());
+        DataStream<Row> newHashes = changed.getSideOutput(ChangeDetectionFunction.HASHES);
+        
+        statements.add(tEnv.fromDataStream(changed, sinkSchema(schema, current, isUpsertMode(config)))
+            .insertInto(schema.getSinkTableName()));
+        statements.add(tEnv.fromDataStream(newHashes).insertInto(hashTable));
+        LOG.info("Change detection enabled for {}: rows with unchanged content hashes are dropped",
+                 schema.getSinkTableName());
+    }
+
+    /**
+     * Compacted topic of the content hash per row key, read back in full as a
+     * bounded upsert-kafka source and updated by the same table. It shares the
+     * delivery guarantee of the main sink, so with exactly-once the new hashes
+     * commit together with the rows they describe.
+     */
+    private static String generateHashStoreDDL(Properties config, SchemaDefinition schema, String tableName) {
+        StringBuilder ddl = new StringBuilder();
+        ddl.append("CREATE TABLE ").append(tableName).append(" (\n");
+        ddl.append("  row_key STRING NOT NULL,\n");
+        ddl.append("  content_hash BIGINT,\n");
+        ddl.append("  PRIMARY KEY (row_key) NOT ENFORCED\n");
+        
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("connector", "upsert-kafka");
+        options.put("topic", requiredProperty(config, "change.detection.topic"));
+        options.put("properties.bootstrap.servers", config.getProperty("kafka.bootstrap.servers"));
+        options.put("properties.isolation.level", "read_committed");
+        options.put("scan.bounded.mode", "latest-offset");
+        options.put("key.format", "raw");
+        options.put("value.format", "json");
+        producerProperties(config).forEach((key, value) -> options.put("properties." + key, value));
+        applyDeliveryGuarantee(config, tableName, options);
+        
+        appendWithClause(ddl, options);
+        return ddl.toString();
+    }
+
+    private static int[] keyPositions(SchemaDefinition schema) {
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < schema.getColumns().size(); i++) {
+            if (schema.getColumns().get(i).isKeyField()) {
+                positions.add(i);
+            }
+        }
+        if (positions.isEmpty()) {
+            throw new IllegalArgumentException("Keyed stages need keyField columns in " + schema.getSinkTableName());
+        }
+        return positions.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Schema of a converted stream as written to the sink: the query's types
+     * under the sink column names, with the keyField columns as primary key.
+     */
+    private static Schema sinkSchema(SchemaDefinition schema, Table query, boolean primaryKey) {
+        List<String> keyNames = new ArrayList<>();
+        Schema.Builder sinkSchema = Schema.newBuilder();
+        List<Column> columns = query.getResolvedSchema().getColumns();
+        for (int i = 0; i < schema.getColumns().size(); i++) {
+            ColumnDefinition col = schema.getColumns().get(i);
+            DataType type = columns.get(i).getDataType();
+            if (primaryKey && col.isKeyField()) {
+                keyNames.add(col.getName());
+                type = type.notNull();
+            }
+            sinkSchema.column(col.getName(), type);
+        }
+        if (!keyNames.isEmpty()) {
+            sinkSchema.primaryKey(keyNames);
+        }
+        return sinkSchema.build();
+    }
+
+    /**
+     * Hash-based change detection reads its hashes back as a changelog, so it
+     * needs streaming execution like the snapshot diff.
+     */
+    static boolean isChangeDetection(Properties config) {
+        String mode = config.getProperty("change.detection", "none").trim().toLowerCase();
+        if (!Arrays.asList("none", "hash").contains(mode)) {
+            throw new IllegalArgumentException("Invalid change.detection '" + mode + "' (expected none or hash)");
+        }
+        if ("none".equals(mode)) {
+            return false;
+        }
+        if (!RuntimeConfiguration.isStreaming(config)) {
+            throw new IllegalArgumentException("change.detection=hash requires flink.execution.mode=streaming");
+        }
+        if (isUpsertDiff(config)) {
+            throw new IllegalArgumentException("change.detection=hash and kafka.sink.upsert.diff are alternatives;"
+                + " enable only one");
+        }
+        return true;
+    }
+
+    /**
+     * Number of BigQuery source subtasks sharing the global rate limit: one
+     * source per table, or per partition when partitions are read as a union.
+     */
+    private static int sourceSubtasks(Properties config, List<SchemaDefinition> schemas) {
+        int parallelism = RuntimeConfiguration.isAdaptiveBatch(config)
+            ? RuntimeConfiguration.intProperty(config, "flink.batch.source.parallelism", 1)
+            : RuntimeConfiguration.intProperty(config, "flink.parallelism", 1);
+        int sources = 0;
+        for (SchemaDefinition schema : schemas) {
+            boolean union = schema.getPartitions() != null && !schema.isPartitionOrdered();
+            sources += union ? schema.getPartitions().size() : 1;
+        }
+        return Math.max(parallelism, 1) * Math.max(sources, 1);
+    }
+
+    /**
+     * How values failing conversion are handled: fail the job (CAST), write
+     * NULL (TRY_CAST) or route the row to the dead-letter table.
+     */
+    private static String transformErrorPolicy(Properties config) {
+        String policy = config.getProperty("transform.error.policy", "fail").trim().toLowerCase();
+        if (!Arrays.asList("fail", "null", "dead-letter").contains(policy)) {
+            throw new IllegalArgumentException("Invalid transform.error.policy '" + policy
+                + "' (expected fail, null or dead-letter)");
+        }
+        return policy;
+    }
+
+    /**
+     * Publish the selected partitions one after another, one job per partition.
+     */
+    private static void executePartitionsInOrder(StreamTableEnvironment tEnv, Properties config,
+                                                 SchemaDefinition schema) throws Exception {
+        for (ColumnDefinition col : schema.getColumns()) {
+            if (col.hasSizeBudget() && !Arrays.asList("truncate", "compress").contains(col.getOversize())) {
+                throw new IllegalArgumentException("Ordered partition reads only support truncate and compress"
+                    + " oversize policies: " + col.getName());
+            }
+        }
+        schema.setTransformErrorPolicy(transformErrorPolicy(config));
+        if ("dead-letter".equals(schema.getTransformErrorPolicy())) {
+            throw new IllegalArgumentException("Ordered partition reads do not support transform.error.policy=dead-letter");
+        }
+        if (isUpsertDiff(config) || isChangeDetection(config)) {
+            throw new IllegalArgumentException("Ordered partition reads do not support kafka.sink.upsert.diff"
+                + " or change.detection");
+        }
+        List<String> partitionTables = registerSourceTables(tEnv, config, schema);
+        registerSinkTable(tEnv, config, schema);
+        writeValueSchema(config, schema);
+        
+        for (String partitionTable : partitionTables) {
+            tEnv.executeSql(generateInsertSQL(schema, partitionTable)).await();
+            LOG.info("Partition table {} written to Kafka", partitionTable);
+        }
+    }
+
+    private static void registerSinkTable(StreamTableEnvironment tEnv, Properties config,
+                                          SchemaDefinition schema) {
         String kafkaSinkDDL = generateKafkaSinkDDL(config, schema);
         LOG.debug("Kafka Sink DDL:\n{}", kafkaSinkDDL);
         tEnv.executeSql(kafkaSinkDDL);
         LOG.info("Kafka Sink Table created: {}", schema.getSinkTableName());
-
-        // Generate and execute data transformation SQL
-        String insertSQL = generateInsertSQL(schema);
-        LOG.debug("Insert SQL:\n{}", insertSQL);
-        
-        try {
-            tEnv.executeSql(insertSQL);
-            LOG.info("Flink pipeline submitted successfully: {} -> Kafka", 
-                     schema.getBigQueryTable());
-        } catch (Exception e) {
-            LOG.error("Error executing pipeline", e);
-            throw e;
-        }
     }
 
     /**
@@ -114,6 +449,48 @@ public class App {
         return props;
     }
 
+    /**
+     * Load every schema referenced by schema.definition.path, which may name a
+     * single file, a directory (all *.json files, sorted by name) or a
+     * comma-separated list of either.
+     */
+    private static List<SchemaDefinition> loadSchemaDefinitions(String schemaPath) throws IOException {
+        List<String> files = new ArrayList<>();
+        for (String entry : schemaPath.split(",")) {
+            File file = new File(entry.trim());
+            if (file.isDirectory()) {
+                File[] jsonFiles = file.listFiles((dir, name) -> name.endsWith(".json"));
+                if (jsonFiles != null) {
+                    Arrays.sort(jsonFiles);
+                    for (File jsonFile : jsonFiles) {
+                        files.add(jsonFile.getPath());
+                    }
+                }
+            } else {
+                files.add(file.getPath());
+            }
+        }
+        if (files.isEmpty()) {
+            throw new IOException("No schema definitions found at: " + schemaPath);
+        }
+        
+        List<SchemaDefinition> schemas = new ArrayList<>();
+        Set<String> tableNames = new HashSet<>();
+        for (String file : files) {
+            SchemaDefinition schema = loadSchemaDefinition(file);
+            if (!tableNames.add(schema.getSourceTableName()) || !tableNames.add(schema.getSinkTableName())) {
+                throw new IllegalArgumentException("Duplicate table name in schema " + file
+                    + "; sourceTableName and sinkTableName must be unique across schemas");
+            }
+            if (files.size() > 1 && schema.isPartitionOrdered()) {
+                throw new IllegalArgumentException("Ordered partition reads are only supported for a single schema: " + file);
+            }
+            schemas.add(schema);
+        }
+        LOG.info("Loaded {} schema definition(s)", schemas.size());
+        return schemas;
+    }
+
     /**
      * Load schema definition from external JSON file for any BigQuery table.
      */
@@ -128,11 +505,35 @@ public class App {
         schema.setBigQueryDataset(root.get("bigQueryDataset").asText());
         schema.setBigQueryTable(root.get("bigQueryTable").asText());
         schema.setKafkaTopic(root.get("kafkaTopic").asText());
+        schema.setFilter(root.has("filter") ? root.get("filter").asText() : null);
+        
+        JsonNode incrementalNode = root.get("incremental");
+        if (incrementalNode != null && incrementalNode.has("column")) {
+            schema.setIncrementalColumn(incrementalNode.get("column").asText());
+            schema.setIncrementalInclusive(incrementalNode.has("inclusive") && incrementalNode.get("inclusive").asBoolean());
+        }
+        
+        JsonNode partitionNode = root.get("partition");
+        if (partitionNode != null) {
+            schema.setPartitionColumn(partitionNode.get("column").asText());
+            schema.setPartitions(resolvePartitions(partitionNode));
+            schema.setPartitionOrdered(partitionNode.has("ordered") && partitionNode.get("ordered").asBoolean());
+            if (schema.isPartitionOrdered() && schema.getIncrementalColumn() != null) {
+                throw new IllegalArgumentException("Ordered partition reads cannot be combined with incremental mode");
+            }
+            LOG.info("Selected {} partitions of {}: {}", schema.getPartitions().size(),
+                     schema.getPartitionColumn(), schema.getPartitions());
+        }
         
         // Load column definitions
         List<ColumnDefinition> columns = new ArrayList<>();
         JsonNode columnsNode = root.get("columns");
         for (JsonNode colNode : columnsNode) {
+            // Columns flagged "read": false are never requested from BigQuery
+            if (colNode.has("read") && !colNode.get("read").asBoolean()) {
+                LOG.info("Skipping column not read from BigQuery: {}", colNode.get("name").asText());
+                continue;
+            }
             ColumnDefinition col = new ColumnDefinition();
             col.setName(colNode.get("name").asText());
             col.setSourceType(colNode.get("sourceType").asText());
@@ -140,6 +541,9 @@ public class App {
             col.setNullable(colNode.get("nullable").asBoolean());
             col.setKeyField(colNode.has("keyField") && colNode.get("keyField").asBoolean());
             col.setTransform(colNode.has("transform") ? colNode.get("transform").asText() : null);
+            col.setMaxBytes(colNode.has("maxBytes") ? colNode.get("maxBytes").asInt() : 0);
+            col.setOversize(colNode.has("oversize") ? colNode.get("oversize").asText().trim().toLowerCase() : null);
+            validateSizeBudget(col);
             columns.add(col);
         }
         schema.setColumns(columns);
@@ -148,12 +552,110 @@ public class App {
         return schema;
     }
 
+    /**
+     * Resolve the partition selection of schema.json into daily partition values:
+     * an explicit "values" list, a "from"/"to" date range or the "latest" N days.
+     */
+    private static List<String> resolvePartitions(JsonNode partitionNode) {
+        List<String> partitions = new ArrayList<>();
+        if (partitionNode.has("values")) {
+            for (JsonNode value : partitionNode.get("values")) {
+                partitions.add(value.asText());
+            }
+        } else if (partitionNode.has("from")) {
+            LocalDate from = LocalDate.parse(partitionNode.get("from").asText());
+            LocalDate to = partitionNode.has("to")
+                ? LocalDate.parse(partitionNode.get("to").asText()) : LocalDate.now(ZoneOffset.UTC);
+            if (from.plusDays(MAX_PARTITIONS).isBefore(to.plusDays(1))) {
+                throw new IllegalArgumentException("Partition range " + from + " to " + to + " exceeds "
+                    + MAX_PARTITIONS + " days; split the backfill into several runs");
+            }
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                partitions.add(day.toString());
+            }
+        } else if (partitionNode.has("latest")) {
+            LocalDate today = LocalDate.now(ZoneOffset.UTC);
+            for (int i = partitionNode.get("latest").asInt() - 1; i >= 0; i--) {
+                partitions.add(today.minusDays(i).toString());
+            }
+        }
+        
+        if (partitions.isEmpty()) {
+            throw new IllegalArgumentException("Partition selection needs \"values\", \"from\" or \"latest\"");
+        }
+        if (partitions.size() > MAX_PARTITIONS) {
+            throw new IllegalArgumentException("Partition selection of " + partitions.size() + " partitions exceeds "
+                + MAX_PARTITIONS + "; split the backfill into several runs");
+        }
+        return partitions;
+    }
+
+    /**
+     * Row restriction for one daily partition. A half-open range matches every
+     * row of the day on DATE, DATETIME and TIMESTAMP (UTC days) columns alike;
+     * values that are not dates are compared for equality.
+     */
+    private static String partitionPredicate(String column, String partition) {
+        LocalDate day;
+        try {
+            day = LocalDate.parse(partition.trim());
+        } catch (DateTimeParseException e) {
+            return column + " = '" + partition.replace("'", "\\'") + "'";
+        }
+        return column + " >= '" + day + "' AND " + column + " < '" + day.plusDays(1) + "'";
+    }
+
+    /**
+     * Register the BigQuery source. With a partition selection every partition gets
+     * its own source table, and so its own read session and splits; unless partitions
+     * are read in order, a view under the source table name unions them.
+     * Returns the partition table names, empty when the whole table is one source.
+     */
+    private static List<String> registerSourceTables(StreamTableEnvironment tEnv, Properties config,
+                                                     SchemaDefinition schema) {
+        List<String> partitionTables = new ArrayList<>();
+        if (schema.getPartitions() == null) {
+            String bigQuerySourceDDL = generateBigQuerySourceDDL(config, schema, schema.getSourceTableName(), null);
+            LOG.debug("BigQuery Source DDL:\n{}", bigQuerySourceDDL);
+            tEnv.executeSql(bigQuerySourceDDL);
+            LOG.info("BigQuery Source Table created: {}", schema.getSourceTableName());
+            return partitionTables;
+        }
+        
+        String partitionColumn = quoteIdentifier(schema.getPartitionColumn());
+        for (int i = 0; i < schema.getPartitions().size(); i++) {
+            String partition = schema.getPartitions().get(i);
+            String tableName = schema.getSourceTableName() + "_p" + i;
+            String predicate = partitionPredicate(partitionColumn, partition);
+            
+            String bigQuerySourceDDL = generateBigQuerySourceDDL(config, schema, tableName, predicate);
+            LOG.debug("BigQuery Source DDL:\n{}", bigQuerySourceDDL);
+            tEnv.executeSql(bigQuerySourceDDL);
+            LOG.info("BigQuery Source Table created: {} (partition {})", tableName, partition);
+            partitionTables.add(tableName);
+        }
+        
+        if (!schema.isPartitionOrdered()) {
+            StringBuilder view = new StringBuilder();
+            view.append("CREATE TEMPORARY VIEW ").append(schema.getSourceTableName()).append(" AS\n");
+            for (int i = 0; i < partitionTables.size(); i++) {
+                if (i > 0) {
+                    view.append("UNION ALL\n");
+                }
+                view.append("SELECT * FROM ").append(partitionTables.get(i)).append("\n");
+            }
+            tEnv.executeSql(view.toString());
+        }
+        return partitionTables;
+    }
+
     /**
      * Generate BigQuery source DDL dynamically based on schema definition.
      */
-    private static String generateBigQuerySourceDDL(Properties config, SchemaDefinition schema) {
+    private static String generateBigQuerySourceDDL(Properties config, SchemaDefinition schema,
+                                                    String tableName, String partitionPredicate) {
         StringBuilder ddl = new StringBuilder();
-        ddl.append("CREATE TABLE ").append(schema.getSourceTableName()).append(" (\n");
+        ddl.append("CREATE TABLE ").append(tableName).append(" (\n");
         
         // Add columns
         for (int i = 0; i < schema.getColumns().size(); i++) {
@@ -176,24 +678,176 @@ public class App {
             }
         }
         
-        ddl.append(") WITH (\n");
-        ddl.append("  'connector' = 'bigquery',\n");
-        ddl.append("  'project' = '").append(schema.getBigQueryProject()).append("',\n");
-        ddl.append("  'dataset' = '").append(schema.getBigQueryDataset()).append("',\n");
-        ddl.append("  'table' = '").append(schema.getBigQueryTable()).append("',\n");
-        ddl.append("  'credentials.file' = '").append(config.getProperty("bigquery.credentials.path")).append("'\n");
-        ddl.append(")");
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("connector", "bigquery");
+        options.put("project", schema.getBigQueryProject());
+        options.put("dataset", schema.getBigQueryDataset());
+        options.put("table", schema.getBigQueryTable());
+        options.put("credentials.file", config.getProperty("bigquery.credentials.path"));
+        
+        // Row restriction evaluated by the BigQuery Storage Read session
+        String rowRestriction = generateRowRestriction(schema, partitionPredicate);
+        if (rowRestriction != null) {
+            options.put("read.row.restriction", rowRestriction);
+            LOG.info("BigQuery row restriction: {}", rowRestriction);
+        }
+        
+        applyReadParallelism(config, schema, options);
+        
+        appendWithClause(ddl, options);
+        return ddl.toString();
+    }
+
+    /**
+     * Combine the schema filter, the partition predicate and the incremental lower
+     * bound into one BigQuery row restriction, or null when the whole table is read.
+     */
+    private static String generateRowRestriction(SchemaDefinition schema, String partitionPredicate) {
+        List<String> predicates = new ArrayList<>();
+        if (schema.getFilter() != null && !schema.getFilter().trim().isEmpty()) {
+            predicates.add("(" + schema.getFilter().trim() + ")");
+        }
+        if (partitionPredicate != null) {
+            predicates.add(partitionPredicate);
+        }
         
+        if (schema.getIncrementalColumn() != null && schema.getIncrementalLowerBound() != null) {
+            ColumnDefinition col = findColumn(schema, schema.getIncrementalColumn());
+            String bound = schema.getIncrementalLowerBound();
+            String literal = isNumericType(col.getSourceType()) ? bound : "'" + bound.replace("'", "\\'") + "'";
+            // Inclusive bounds re-read rows sharing the committed maximum instead of skipping them
+            predicates.add(col.getName() + (schema.isIncrementalInclusive() ? " >= " : " > ") + literal);
+        }
+        
+        return predicates.isEmpty() ? null : String.join(" AND ", predicates);
+    }
+
+    /**
+     * Filesystem table receiving the MAX of the incremental column for this run.
+     */
+    private static String generateHighWaterMarkSinkDDL(SchemaDefinition schema, String path) {
+        StringBuilder ddl = new StringBuilder();
+        ddl.append("CREATE TABLE ").append(schema.getSourceTableName()).append("_hwm (\n");
+        ddl.append("  hwm STRING\n");
+        
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("connector", "filesystem");
+        options.put("path", path);
+        // raw writes the value as-is; csv would quote values containing spaces
+        options.put("format", "raw");
+        
+        appendWithClause(ddl, options);
         return ddl.toString();
     }
 
+    /**
+     * Compute the new high-water mark; shares the source scan with the main INSERT.
+     * A run without new rows writes nothing, since raw cannot encode NULL.
+     */
+    private static String generateHighWaterMarkSQL(SchemaDefinition schema) {
+        String columnRef = quoteIdentifier(findColumn(schema, schema.getIncrementalColumn()).getName());
+        return "INSERT INTO " + schema.getSourceTableName() + "_hwm\n"
+             + "SELECT CAST(MAX(" + columnRef + ") AS STRING)\n"
+             + "FROM " + schema.getSourceTableName() + "\n"
+             + "HAVING MAX(" + columnRef + ") IS NOT NULL";
+    }
+
+    private static ColumnDefinition findColumn(SchemaDefinition schema, String name) {
+        for (ColumnDefinition col : schema.getColumns()) {
+            if (col.getName().equals(name)) {
+                return col;
+            }
+        }
+        throw new IllegalArgumentException("Column '" + name + "' is not defined in schema " 
+                                           + schema.getSourceTableName());
+    }
+
+    private static boolean isNumericType(String type) {
+        String upper = type.toUpperCase();
+        return upper.startsWith("BIGINT") || upper.startsWith("INT") || upper.startsWith("SMALLINT")
+            || upper.startsWith("TINYINT") || upper.startsWith("DOUBLE") || upper.startsWith("FLOAT")
+            || upper.startsWith("DECIMAL");
+    }
+
+    private static String quoteIdentifier(String name) {
+        return isReservedKeyword(name) ? "`" + name + "`" : name;
+    }
+
+    /**
+     * Size the Storage Read session. An explicit bigquery.read.streams.max wins,
+     * then a stream count derived from the table size (adaptive batch mode);
+     * otherwise bigquery.read.streams.per.subtask is multiplied by the source
+     * parallelism so every subtask gets its own share of read streams.
+     * Any bigquery.connector.<option> key is passed through to the connector.
+     */
+    private static void applyReadParallelism(Properties config, SchemaDefinition schema,
+                                             Map<String, String> options) {
+        int maxStreams = RuntimeConfiguration.intProperty(config, "bigquery.read.streams.max", 0);
+        if (maxStreams <= 0 && schema.getReadStreams() > 0) {
+            // Derived from the table size for the adaptive batch scheduler
+            maxStreams = schema.getReadStreams();
+        } else if (maxStreams <= 0) {
+            int streamsPerSubtask = RuntimeConfiguration.intProperty(config, "bigquery.read.streams.per.subtask", 0);
+            int parallelism = RuntimeConfiguration.intProperty(config, "flink.parallelism", 1);
+            maxStreams = streamsPerSubtask * Math.max(parallelism, 1);
+        }
+        if (maxStreams > 0) {
+            options.put("read.streams.maxcount", String.valueOf(maxStreams));
+            LOG.info("BigQuery read streams: {}", maxStreams);
+        }
+        
+        String prefix = "bigquery.connector.";
+        for (String key : new TreeSet<>(config.stringPropertyNames())) {
+            if (key.startsWith(prefix)) {
+                options.put(key.substring(prefix.length()), config.getProperty(key).trim());
+            }
+        }
+    }
+
     /**
      * Generate Kafka sink DDL dynamically based on schema definition.
+     * In upsert mode the keyField columns form the primary key of an
+     * upsert-kafka table, so NULL values are written as tombstones.
      */
     private static String generateKafkaSinkDDL(Properties config, SchemaDefinition schema) {
+        boolean upsert = isUpsertMode(config);
         StringBuilder ddl = new StringBuilder();
         ddl.append("CREATE TABLE ").append(schema.getSinkTableName()).append(" (\n");
+        List<String> keyFields = appendSinkColumns(ddl, config, schema, upsert);
+        
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("connector", upsert ? "upsert-kafka" : "kafka");
+        options.put("topic", schema.getKafkaTopic());
+        options.put("properties.bootstrap.servers", config.getProperty("kafka.bootstrap.servers"));
+        
+        if (upsert) {
+            // upsert-kafka keys on the primary key and hashes it with Kafka's partitioner
+            applyKeyFormat(config, schema, schema.getKafkaTopic(), options);
+        } else {
+            if (!keyFields.isEmpty()) {
+                options.put("key.fields", String.join(";", keyFields));
+                applyKeyFormat(config, schema, schema.getKafkaTopic(), options);
+            }
+            applyPartitioner(config, schema, !keyFields.isEmpty(), options);
+        }
+        applyValueFormat(config, schema, options);
+        applySinkParallelism(config, options);
         
+        // Producer tuning: preset first, explicit kafka.producer.* keys win
+        producerProperties(config).forEach((key, value) -> options.put("properties." + key, value));
+        
+        applyDeliveryGuarantee(config, schema.getSinkTableName(), options);
+        
+        appendWithClause(ddl, options);
+        return ddl.toString();
+    }
+
+    /**
+     * Append the sink columns, plus the keyField primary key when requested,
+     * and return the quoted keyField column names.
+     */
+    private static List<String> appendSinkColumns(StringBuilder ddl, Properties config, SchemaDefinition schema,
+                                                  boolean primaryKey) {
         List<String> keyFields = new ArrayList<>();
         
         // Add columns
@@ -210,6 +864,12 @@ public class App {
             
             ddl.append(" ").append(col.getSinkType());
             
+            // Avro schemas carry nullability, so non-nullable columns must be declared as such
+            if (!col.isNullable() && (isAvroValueFormat(config)
+                                      || col.isKeyField() && isAvroFormat(keyFormat(config, schema)))) {
+                ddl.append(" NOT NULL");
+            }
+            
             if (col.isKeyField()) {
                 keyFields.add(isReservedKeyword(col.getName()) ? 
                              "`" + col.getName() + "`" : col.getName());
@@ -222,52 +882,401 @@ public class App {
             }
         }
         
-        ddl.append(") WITH (\n");
-        ddl.append("  'connector' = 'kafka',\n");
-        ddl.append("  'topic' = '").append(schema.getKafkaTopic()).append("',\n");
-        ddl.append("  'properties.bootstrap.servers' = '").append(config.getProperty("kafka.bootstrap.servers")).append("',\n");
-        ddl.append("  'key.format' = 'raw',\n");
-        
-        if (!keyFields.isEmpty()) {
-            ddl.append("  'key.fields' = '").append(String.join(";", keyFields)).append("',\n");
+        if (primaryKey) {
+            if (keyFields.isEmpty()) {
+                throw new IllegalArgumentException("kafka.sink.mode=upsert requires keyField columns in "
+                    + schema.getSinkTableName());
+            }
+            ddl.setLength(ddl.length() - 1);
+            ddl.append(",\n  PRIMARY KEY (").append(String.join(", ", keyFields)).append(") NOT ENFORCED\n");
         }
+        return keyFields;
+    }
+
+    /**
+     * Bounded upsert-kafka source over the target topic: replays its compacted
+     * state, the snapshot written by the previous sync.
+     */
+    private static String generatePreviousSnapshotDDL(Properties config, SchemaDefinition schema,
+                                                      String tableName) {
+        StringBuilder ddl = new StringBuilder();
+        ddl.append("CREATE TABLE ").append(tableName).append(" (\n");
+        appendSinkColumns(ddl, config, schema, true);
         
-        ddl.append("  'value.format' = '").append(config.getProperty("kafka.value.format", "json")).append("'\n");
-        ddl.append(")");
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("connector", "upsert-kafka");
+        options.put("topic", schema.getKafkaTopic());
+        options.put("properties.bootstrap.servers", config.getProperty("kafka.bootstrap.servers"));
+        options.put("properties.isolation.level", "read_committed");
+        options.put("scan.bounded.mode", "latest-offset");
+        applyKeyFormat(config, schema, schema.getKafkaTopic(), options);
+        applyValueFormat(config, schema, options);
         
+        appendWithClause(ddl, options);
         return ddl.toString();
     }
 
+    private static boolean isUpsertMode(Properties config) {
+        String mode = config.getProperty("kafka.sink.mode", "append").trim().toLowerCase();
+        if (!Arrays.asList("append", "upsert").contains(mode)) {
+            throw new IllegalArgumentException("Invalid kafka.sink.mode '" + mode + "' (expected append or upsert)");
+        }
+        return "upsert".equals(mode);
+    }
+
+    /**
+     * The snapshot diff needs upsert mode, streaming execution (batch jobs
+     * cannot carry deletes) and formats that can be read back.
+     */
+    static boolean isUpsertDiff(Properties config) {
+        if (!Boolean.parseBoolean(config.getProperty("kafka.sink.upsert.diff", "false").trim())) {
+            return false;
+        }
+        if (!isUpsertMode(config)) {
+            throw new IllegalArgumentException("kafka.sink.upsert.diff requires kafka.sink.mode=upsert");
+        }
+        if (!RuntimeConfiguration.isStreaming(config)) {
+            throw new IllegalArgumentException("kafka.sink.upsert.diff requires flink.execution.mode=streaming");
+        }
+        if ("protobuf".equals(valueFormat(config))
+                || CompositeKeyFormatFactory.IDENTIFIER.equals(config.getProperty("kafka.key.format", "").trim())) {
+            throw new IllegalArgumentException("kafka.sink.upsert.diff cannot read back protobuf values or composite-key keys");
+        }
+        if ("dead-letter".equals(config.getProperty("transform.error.policy", "fail").trim().toLowerCase())) {
+            // Rows routed to the dead-letter table would look deleted and be tombstoned
+            throw new IllegalArgumentException("kafka.sink.upsert.diff cannot be combined with transform.error.policy=dead-letter");
+        }
+        return true;
+    }
+
+    /**
+     * An explicit sink parallelism also keeps the sink out of the source's
+     * operator chain. Speculative execution relies on that: the Kafka sink
+     * cannot run as concurrent attempts, so chained with the source it would
+     * stop slow read tasks from being duplicated.
+     */
+    private static void applySinkParallelism(Properties config, Map<String, String> options) {
+        int sinkParallelism = RuntimeConfiguration.intProperty(config, "kafka.sink.parallelism", 0);
+        if (sinkParallelism <= 0 && RuntimeConfiguration.isSpeculative(config)) {
+            // Size it like the source; flink.parallelism is not used by the adaptive batch scheduler
+            sinkParallelism = RuntimeConfiguration.intProperty(config, "flink.batch.source.parallelism",
+                                                               RuntimeConfiguration.maxBatchParallelism(config));
+        }
+        if (sinkParallelism > 0) {
+            options.put("sink.parallelism", String.valueOf(sinkParallelism));
+        }
+    }
+
+    /**
+     * Kafka sink partitioner. default hashes the key with Kafka's partitioner
+     * (sticky for keyless records), fixed maps each subtask to one partition,
+     * round-robin spreads records evenly and consistent-hash uses
+     * {@link ConsistentHashPartitioner}. Only default and consistent-hash keep
+     * every record of a key in one partition.
+     */
+    private static void applyPartitioner(Properties config, SchemaDefinition schema, boolean keyed,
+                                         Map<String, String> options) {
+        String partitioner = config.getProperty("kafka.sink.partitioner", "default").trim().toLowerCase();
+        switch (partitioner) {
+            case "default":
+            case "fixed":
+            case "round-robin":
+                options.put("sink.partitioner", partitioner);
+                break;
+            case "consistent-hash":
+                options.put("sink.partitioner", ConsistentHashPartitioner.class.getName());
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid kafka.sink.partitioner '" + partitioner
+                    + "' (expected default, fixed, round-robin or consistent-hash)");
+        }
+        if (keyed && ("fixed".equals(partitioner) || "round-robin".equals(partitioner))) {
+            LOG.warn("kafka.sink.partitioner={} ignores the keyField columns of {}; per-key ordering is not kept",
+                     partitioner, schema.getSinkTableName());
+        }
+    }
+
+    /**
+     * Key format of the keyField columns. auto picks raw for a single column of
+     * a raw-encodable type, as the baseline did, and json otherwise; raw only
+     * supports a single such column.
+     */
+    private static String keyFormat(Properties config, SchemaDefinition schema) {
+        List<ColumnDefinition> keyColumns = new ArrayList<>();
+        for (ColumnDefinition col : schema.getColumns()) {
+            if (col.isKeyField()) {
+                keyColumns.add(col);
+            }
+        }
+        boolean singleRawKey = keyColumns.size() == 1 && isRawType(keyColumns.get(0).getSinkType());
+        String format = config.getProperty("kafka.key.format", "auto").trim().toLowerCase();
+        switch (format) {
+            case "auto":
+                return singleRawKey ? "raw" : "json";
+            case "raw":
+                if (!keyColumns.isEmpty() && !singleRawKey) {
+                    throw new IllegalArgumentException("kafka.key.format=raw needs a single string, bytes, boolean or numeric keyField column in "
+                        + schema.getSinkTableName() + "; use json, avro, avro-confluent or composite-key");
+                }
+                return format;
+            case "json":
+            case "avro":
+            case "avro-confluent":
+            case CompositeKeyFormatFactory.IDENTIFIER:
+                return format;
+            default:
+                throw new IllegalArgumentException("Invalid kafka.key.format '" + format
+                    + "' (expected auto, raw, json, avro, avro-confluent or composite-key)");
+        }
+    }
+
+    /**
+     * Types Flink's raw format can encode: strings, bytes, booleans and
+     * fixed-width numbers (big-endian).
+     */
+    private static boolean isRawType(String sinkType) {
+        String type = sinkType.trim().toUpperCase();
+        return type.startsWith("STRING") || type.startsWith("VARCHAR") || type.startsWith("CHAR")
+               || type.startsWith("BYTES") || type.startsWith("VARBINARY") || type.startsWith("BINARY")
+               || Arrays.asList("BOOLEAN", "TINYINT", "SMALLINT", "INT", "INTEGER", "BIGINT", "FLOAT", "DOUBLE")
+                      .contains(type);
+    }
+
+    /**
+     * Key format options; avro-confluent keys register the schema Flink derives
+     * from the keyField columns under the &lt;topic&gt;-key subject.
+     */
+    private static void applyKeyFormat(Properties config, SchemaDefinition schema, String topic,
+                                       Map<String, String> options) {
+        String format = keyFormat(config, schema);
+        options.put("key.format", format);
+        if ("avro-confluent".equals(format)) {
+            options.put("key.avro-confluent.url", schemaRegistryUrl(config, "kafka.key.format"));
+            options.put("key.avro-confluent.subject", topic + "-key");
+        }
+        LOG.info("Kafka key format for {}: {}", schema.getSinkTableName(), format);
+    }
+
+    private static String schemaRegistryUrl(Properties config, String formatKey) {
+        String registryUrl = config.getProperty("kafka.schema.registry.url", "").trim();
+        if (registryUrl.isEmpty()) {
+            throw new IllegalArgumentException(formatKey + "=avro-confluent requires kafka.schema.registry.url"
+                + " or kafka.schema.registry.embedded=true");
+        }
+        return registryUrl;
+    }
+
+    /**
+     * Value format options. avro-confluent registers the schema Flink derives
+     * from the sink DDL (sinkTypes and NOT NULL) under the &lt;topic&gt;-value
+     * subject of kafka.schema.registry.url.
+     */
+    private static void applyValueFormat(Properties config, SchemaDefinition schema, Map<String, String> options) {
+        String format = valueFormat(config);
+        options.put("value.format", format);
+        
+        if ("avro-confluent".equals(format)) {
+            options.put("value.avro-confluent.url", schemaRegistryUrl(config, "kafka.value.format"));
+            options.put("value.avro-confluent.subject", schema.getKafkaTopic() + "-value");
+        } else if ("protobuf".equals(format)) {
+            int[] fieldNumbers;
+            try {
+                fieldNumbers = new ProtobufSchemaGenerator(protobufSchemaDir(config), schema).getFieldNumbers();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read protobuf schema of " + schema.getSinkTableName(), e);
+            }
+            List<String> numbers = new ArrayList<>();
+            for (int number : fieldNumbers) {
+                numbers.add(String.valueOf(number));
+            }
+            options.put("value.format", ProtobufRowFormatFactory.IDENTIFIER);
+            options.put("value." + ProtobufRowFormatFactory.IDENTIFIER + ".field-numbers", String.join(",", numbers));
+        }
+    }
+
+    /**
+     * The .proto files in kafka.value.schema.dir keep protobuf field numbers stable across runs.
+     */
+    private static String protobufSchemaDir(Properties config) {
+        String schemaDir = config.getProperty("kafka.value.schema.dir", "").trim();
+        if (schemaDir.isEmpty()) {
+            throw new IllegalArgumentException("kafka.value.format=protobuf requires kafka.value.schema.dir");
+        }
+        return schemaDir;
+    }
+
+    private static String valueFormat(Properties config) {
+        return config.getProperty("kafka.value.format", "json").trim().toLowerCase();
+    }
+
+    private static boolean isAvroValueFormat(Properties config) {
+        return isAvroFormat(valueFormat(config));
+    }
+
+    private static boolean isAvroFormat(String format) {
+        return "avro".equals(format) || "avro-confluent".equals(format);
+    }
+
+    /**
+     * Write the Avro or protobuf value schema for consumers to kafka.value.schema.dir.
+     * The Avro schema matches the one Flink derives on the wire.
+     */
+    private static void writeValueSchema(Properties config, SchemaDefinition schema) throws IOException {
+        if ("protobuf".equals(valueFormat(config))) {
+            new ProtobufSchemaGenerator(protobufSchemaDir(config), schema).writeProtoFile();
+            return;
+        }
+        String schemaDir = config.getProperty("kafka.value.schema.dir", "").trim();
+        if (schemaDir.isEmpty() || !isAvroValueFormat(config)) {
+            return;
+        }
+        AvroSchemaGenerator.writeSchemaFile(schemaDir, schema, AvroSchemaGenerator.generate(schema));
+    }
+
+    /**
+     * Resolve Kafka producer properties from the optional kafka.producer.preset
+     * and any kafka.producer.* passthrough keys in config.properties.
+     */
+    private static Map<String, String> producerProperties(Properties config) {
+        Map<String, String> producer = new TreeMap<>();
+        
+        String preset = config.getProperty("kafka.producer.preset", "").trim().toLowerCase();
+        switch (preset) {
+            case "":
+            case "none":
+                break;
+            case "throughput":
+                producer.put("batch.size", "262144");
+                producer.put("linger.ms", "50");
+                producer.put("compression.type", "lz4");
+                producer.put("buffer.memory", "134217728");
+                producer.put("max.in.flight.requests.per.connection", "5");
+                producer.put("acks", "all");
+                break;
+            case "latency":
+                producer.put("batch.size", "16384");
+                producer.put("linger.ms", "0");
+                producer.put("compression.type", "none");
+                producer.put("max.in.flight.requests.per.connection", "1");
+                producer.put("acks", "1");
+                producer.put("enable.idempotence", "false");
+                break;
+            case "balanced":
+                producer.put("batch.size", "65536");
+                producer.put("linger.ms", "10");
+                producer.put("compression.type", "lz4");
+                producer.put("acks", "all");
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid kafka.producer.preset '" + preset
+                    + "' (expected throughput, latency or balanced)");
+        }
+        
+        String prefix = "kafka.producer.";
+        for (String key : config.stringPropertyNames()) {
+            if (key.startsWith(prefix) && !key.equals("kafka.producer.preset")) {
+                producer.put(key.substring(prefix.length()), config.getProperty(key).trim());
+            }
+        }
+        
+        if (!producer.isEmpty()) {
+            LOG.info("Kafka producer properties: {}", producer);
+        }
+        return producer;
+    }
+
+    /**
+     * Configure sink delivery semantics. Exactly-once writes inside Kafka transactions
+     * that commit on checkpoint completion (or at end of input in batch mode), so
+     * consumers must read with isolation.level=read_committed.
+     */
+    private static void applyDeliveryGuarantee(Properties config, String tableName,
+                                               Map<String, String> options) {
+        String guarantee = config.getProperty("kafka.sink.delivery.guarantee", "at-least-once")
+            .trim().toLowerCase().replace('_', '-');
+        if (!Arrays.asList("none", "at-least-once", "exactly-once").contains(guarantee)) {
+            throw new IllegalArgumentException("Invalid kafka.sink.delivery.guarantee '" + guarantee
+                + "' (expected none, at-least-once or exactly-once)");
+        }
+        options.put("sink.delivery-guarantee", guarantee);
+        
+        if (!"exactly-once".equals(guarantee)) {
+            return;
+        }
+        
+        long checkpointInterval = RuntimeConfiguration.longProperty(config, "flink.checkpoint.interval", 0L);
+        if (RuntimeConfiguration.isStreaming(config) && checkpointInterval <= 0) {
+            throw new IllegalArgumentException(
+                "exactly-once delivery in streaming mode requires flink.checkpoint.interval > 0");
+        }
+        
+        // Transactions need an idempotent producer; Kafka fails the writer at init otherwise
+        String idempotence = options.getOrDefault("properties.enable.idempotence", "true");
+        String acks = options.getOrDefault("properties.acks", "all");
+        int inFlight = Integer.parseInt(options.getOrDefault("properties.max.in.flight.requests.per.connection", "5"));
+        if ("false".equalsIgnoreCase(idempotence) || !Arrays.asList("all", "-1").contains(acks.toLowerCase())
+                || inFlight > 5) {
+            throw new IllegalArgumentException("exactly-once delivery requires enable.idempotence=true, acks=all and"
+                + " max.in.flight.requests.per.connection <= 5; use another kafka.producer.preset than latency"
+                + " or drop the conflicting kafka.producer.* keys");
+        }
+        
+        // Every sink table needs its own prefix, so the table name is always appended
+        String prefix = config.getProperty("kafka.sink.transactional.id.prefix", "").trim();
+        if (prefix.isEmpty()) {
+            prefix = config.getProperty("app.name", "bigquery-to-kafka").trim();
+        }
+        prefix = prefix + "-" + tableName;
+        options.put("sink.transactional-id-prefix", prefix);
+        
+        // Must exceed the checkpoint interval and stay below the broker's transaction.max.timeout.ms
+        long transactionTimeout = RuntimeConfiguration.longProperty(config, "kafka.sink.transaction.timeout", 900000L);
+        if (checkpointInterval > 0 && transactionTimeout <= checkpointInterval) {
+            LOG.warn("kafka.sink.transaction.timeout ({} ms) should exceed flink.checkpoint.interval ({} ms)",
+                     transactionTimeout, checkpointInterval);
+        }
+        options.put("properties.transaction.timeout.ms", String.valueOf(transactionTimeout));
+        
+        // Exposes txn-commit-time-ns-total and friends under the KafkaProducer metric group
+        options.put("properties.register.producer.metrics", "true");
+        
+        LOG.info("Kafka sink exactly-once with transactional id prefix '{}' and {} ms transaction timeout",
+                 prefix, transactionTimeout);
+    }
+
+    /**
+     * Append a WITH (...) clause, escaping single quotes in option values.
+     */
+    private static void appendWithClause(StringBuilder ddl, Map<String, String> options) {
+        ddl.append(") WITH (\n");
+        Iterator<Map.Entry<String, String>> it = options.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, String> option = it.next();
+            ddl.append("  '").append(option.getKey()).append("' = '")
+               .append(String.valueOf(option.getValue()).replace("'", "''")).append("'");
+            ddl.append(it.hasNext() ? ",\n" : "\n");
+        }
+        ddl.append(")");
+    }
+
     /**
      * Generate INSERT SQL with transformations from schema definition.
      */
     private static String generateInsertSQL(SchemaDefinition schema) {
+        return generateInsertSQL(schema, schema.getSourceTableName());
+    }
+
+    private static String generateInsertSQL(SchemaDefinition schema, String fromTable) {
+        return "INSERT INTO " + schema.getSinkTableName() + "\n" + generateSelectSQL(schema, fromTable);
+    }
+
+    private static String generateSelectSQL(SchemaDefinition schema, String fromTable) {
         StringBuilder sql = new StringBuilder();
-        sql.append("INSERT INTO ").append(schema.getSinkTableName()).append("\n");
         sql.append("SELECT\n");
         
         for (int i = 0; i < schema.getColumns().size(); i++) {
             ColumnDefinition col = schema.getColumns().get(i);
-            sql.append("  ");
-            
-            String columnRef = isReservedKeyword(col.getName()) ? 
-                              "`" + col.getName() + "`" : col.getName();
-            
-            if (col.getTransform() != null && !col.getTransform().isEmpty()) {
-                // Apply custom transformation
-                sql.append(col.getTransform().replace("${column}", columnRef));
-            } else if (col.isNullable() && !col.getSourceType().equals(col.getSinkType())) {
-                // Default transformation: NULLIF for nullable fields with type conversion
-                sql.append("CAST(NULLIF(").append(columnRef).append(", '') AS ")
-                   .append(col.getSinkType()).append(")");
-            } else if (!col.getSourceType().equals(col.getSinkType())) {
-                // Simple cast
-                sql.append("CAST(").append(columnRef).append(" AS ")
-                   .append(col.getSinkType()).append(")");
-            } else {
-                // No transformation needed
-                sql.append(columnRef);
-            }
+            sql.append("  ").append(sinkExpression(schema, col));
             
             if (i < schema.getColumns().size() - 1) {
                 sql.append(",\n");
@@ -276,10 +1285,305 @@ public class App {
             }
         }
         
-        sql.append("FROM ").append(schema.getSourceTableName());
+        sql.append("FROM ").append(fromTable);
+        
+        List<String> predicates = new ArrayList<>();
+        if (schema.isRateLimited()) {
+            // Throttles the source subtask through backpressure
+            List<String> columnRefs = new ArrayList<>();
+            schema.getColumns().forEach(col -> columnRefs.add(quoteIdentifier(col.getName())));
+            predicates.add(RateLimitFunction.RATE_LIMIT + "(" + String.join(", ", columnRefs) + ")");
+        }
+        if (schema.isRecordSizeMetrics()) {
+            List<String> columnRefs = new ArrayList<>();
+            schema.getColumns().forEach(col -> columnRefs.add(quoteIdentifier(col.getName())));
+            predicates.add(FieldSizeFunctions.OBSERVE_RECORD_SIZE + "(" + String.join(", ", columnRefs) + ")");
+        }
+        for (ColumnDefinition col : schema.getColumns()) {
+            if (col.hasSizeBudget() && "dead-letter".equals(col.getOversize())) {
+                // Oversized rows go to the dead-letter topic instead
+                predicates.add("COALESCE(" + FieldSizeFunctions.FIELD_BYTES + "(" + columnExpression(schema, col) + "), 0) <= "
+                               + col.getMaxBytes());
+            }
+        }
+        if ("dead-letter".equals(schema.getTransformErrorPolicy())) {
+            // Rows with unconvertible values go to the dead-letter table instead
+            for (ColumnDefinition col : convertedColumns(schema)) {
+                predicates.add("NOT " + conversionFailure(schema, col));
+            }
+        }
+        if (!predicates.isEmpty()) {
+            sql.append("\nWHERE ").append(String.join("\n  AND ", predicates));
+        }
         return sql.toString();
     }
 
+    /**
+     * Column value as written to the main sink: the converted value with the
+     * column's size budget applied.
+     */
+    private static String sinkExpression(SchemaDefinition schema, ColumnDefinition col) {
+        String expression = columnExpression(schema, col);
+        if (!col.hasSizeBudget()) {
+            return expression;
+        }
+        switch (col.getOversize()) {
+            case "truncate":
+                return FieldSizeFunctions.TRUNCATE_BYTES + "(" + expression + ", " + col.getMaxBytes() + ")";
+            case "compress":
+                return FieldSizeFunctions.COMPRESS_FIELD + "(" + expression + ", " + col.getMaxBytes() + ")";
+            case "claim-check":
+                // The value moves to the claim-check topic under the same record key
+                return "CASE WHEN " + FieldSizeFunctions.FIELD_BYTES + "(" + expression + ") > " + col.getMaxBytes()
+                     + " THEN '" + CLAIM_CHECK_PREFIX + col.getName() + "' ELSE " + expression + " END";
+            default:
+                return expression;
+        }
+    }
+
+    /**
+     * Converted column value: custom transform, numeric parsing or cast.
+     */
+    private static String columnExpression(SchemaDefinition schema, ColumnDefinition col) {
+        String columnRef = quoteIdentifier(col.getName());
+        
+        if (col.getTransform() != null && !col.getTransform().isEmpty()) {
+            // Apply custom transformation
+            return col.getTransform().replace("${column}", columnRef);
+        } else if (col.isNullable() && "STRING".equalsIgnoreCase(col.getSourceType())
+                   && NumericParseFunctions.functionFor(col.getSinkType()) != null) {
+            // Byte-level numeric parsing: '' becomes NULL; malformed values fail only under the fail policy
+            return NumericParseFunctions.functionFor(col.getSinkType()) + "(" + columnRef
+                + ("fail".equals(schema.getTransformErrorPolicy()) ? ", TRUE)" : ")");
+        }
+        
+        // Unless failures should fail the job, invalid values become NULL via TRY_CAST
+        String cast = "fail".equals(schema.getTransformErrorPolicy()) ? "CAST(" : "TRY_CAST(";
+        if (col.isNullable() && !col.getSourceType().equals(col.getSinkType())) {
+            // Default transformation: NULLIF for nullable fields with type conversion
+            return cast + "NULLIF(" + columnRef + ", '') AS " + col.getSinkType() + ")";
+        } else if (!col.getSourceType().equals(col.getSinkType())) {
+            // Simple cast
+            return cast + columnRef + " AS " + col.getSinkType() + ")";
+        }
+        // No transformation needed
+        return columnRef;
+    }
+
+    /**
+     * True when a converted column came out NULL although its source value was
+     * not blank. Only the TRY_CAST or PARSE_* conversion the job generates is
+     * checked: a custom transform may return NULL on purpose, e.g.
+     * NULLIF(${column}, ''), so its columns are never treated as failures.
+     */
+    private static String conversionFailure(SchemaDefinition schema, ColumnDefinition col) {
+        String columnRef = quoteIdentifier(col.getName());
+        String sourceValue = "STRING".equalsIgnoreCase(col.getSourceType())
+            ? columnRef : "CAST(" + columnRef + " AS STRING)";
+        return "(" + columnRef + " IS NOT NULL AND TRIM(" + sourceValue + ") <> ''"
+             + " AND " + columnExpression(schema, col) + " IS NULL)";
+    }
+
+    private static List<ColumnDefinition> convertedColumns(SchemaDefinition schema) {
+        List<ColumnDefinition> converted = new ArrayList<>();
+        for (ColumnDefinition col : schema.getColumns()) {
+            boolean transformed = col.getTransform() != null && !col.getTransform().isEmpty();
+            if (!transformed && !col.getSourceType().equalsIgnoreCase(col.getSinkType())) {
+                converted.add(col);
+            }
+        }
+        return converted;
+    }
+
+    /**
+     * With transform.error.policy=dead-letter, rows holding a value that fails
+     * conversion are written to the dead-letter table, once per failing column.
+     */
+    private static void addConversionDeadLetters(StreamTableEnvironment tEnv, Properties config,
+                                                 SchemaDefinition schema, StatementSet statements) {
+        if (!"dead-letter".equals(schema.getTransformErrorPolicy())) {
+            return;
+        }
+        List<ColumnDefinition> converted = convertedColumns(schema);
+        if (converted.isEmpty()) {
+            return;
+        }
+        registerDeadLetterTable(tEnv, config, schema);
+        for (ColumnDefinition col : converted) {
+            statements.addInsertSql(generateDeadLetterSQL(schema, col.getName(),
+                "'value not convertible to " + col.getSinkType() + "'", conversionFailure(schema, col)));
+        }
+        LOG.info("Conversion failures of {} columns go to the dead-letter table", converted.size());
+    }
+
+    /**
+     * Oversize policies only apply to string sink columns.
+     */
+    private static void validateSizeBudget(ColumnDefinition col) {
+        if (!col.hasSizeBudget()) {
+            return;
+        }
+        if (!col.getSinkType().toUpperCase().startsWith("STRING") && !col.getSinkType().toUpperCase().startsWith("VARCHAR")) {
+            throw new IllegalArgumentException("maxBytes is only supported for STRING columns: " + col.getName());
+        }
+        if (col.getOversize() == null) {
+            col.setOversize("truncate");
+        }
+        if (!Arrays.asList("truncate", "compress", "claim-check", "dead-letter").contains(col.getOversize())) {
+            throw new IllegalArgumentException("Invalid oversize policy '" + col.getOversize() + "' for column "
+                + col.getName() + " (expected truncate, compress, claim-check or dead-letter)");
+        }
+    }
+
+    /**
+     * Register the claim-check and dead-letter topics used by the column size
+     * budgets of a schema and add the INSERTs that feed them.
+     */
+    private static void addSizeBudgetOutputs(StreamTableEnvironment tEnv, Properties config,
+                                             SchemaDefinition schema, StatementSet statements) {
+        List<ColumnDefinition> claimChecks = new ArrayList<>();
+        List<ColumnDefinition> deadLetters = new ArrayList<>();
+        for (ColumnDefinition col : schema.getColumns()) {
+            if (col.hasSizeBudget() && "claim-check".equals(col.getOversize())) {
+                claimChecks.add(col);
+            } else if (col.hasSizeBudget() && "dead-letter".equals(col.getOversize())) {
+                deadLetters.add(col);
+            }
+        }
+        
+        if (!claimChecks.isEmpty()) {
+            String table = schema.getSinkTableName() + "_claimcheck";
+            String topic = requiredProperty(config, "kafka.claimcheck.topic");
+            // The keyField columns are written with the sink's key format, so the
+            // record key bytes are the same as those of the main record
+            Map<String, String> columns = new LinkedHashMap<>();
+            List<String> keyFields = new ArrayList<>();
+            List<String> keyExpressions = new ArrayList<>();
+            boolean avroKey = isAvroFormat(keyFormat(config, schema));
+            for (ColumnDefinition col : schema.getColumns()) {
+                if (col.isKeyField()) {
+                    // Same nullability as in the sink, where primary key columns are NOT NULL
+                    boolean notNull = isUpsertMode(config) || !col.isNullable() && avroKey;
+                    columns.put(quoteIdentifier(col.getName()), col.getSinkType() + (notNull ? " NOT NULL" : ""));
+                    keyFields.add(col.getName());
+                    keyExpressions.add(columnExpression(schema, col));
+                }
+            }
+            if (keyFields.isEmpty()) {
+                // Without a key the claim-check record cannot be matched to its main record
+                throw new IllegalArgumentException("\"oversize\": \"claim-check\" needs keyField columns in "
+                    + schema.getSinkTableName());
+            }
+            columns.put("column_name", "STRING");
+            columns.put("payload", "STRING");
+            Map<String, String> keyOptions = new LinkedHashMap<>();
+            keyOptions.put("key.fields", String.join(";", keyFields));
+            applyKeyFormat(config, schema, topic, keyOptions);
+            tEnv.executeSql(generateSideTopicDDL(config, table, topic, columns, keyOptions));
+            String keys = String.join(", ", keyExpressions) + ", ";
+            for (ColumnDefinition col : claimChecks) {
+                String expression = columnExpression(schema, col);
+                statements.addInsertSql("INSERT INTO " + table + "\n"
+                    + "SELECT " + keys + "'" + col.getName() + "', " + expression + "\n"
+                    + "FROM " + schema.getSourceTableName() + "\n"
+                    + "WHERE " + FieldSizeFunctions.FIELD_BYTES + "(" + expression + ") > " + col.getMaxBytes());
+            }
+            LOG.info("Oversized values of {} go to claim-check table {}", claimChecks.size(), table);
+        }
+        
+        for (ColumnDefinition col : deadLetters) {
+            registerDeadLetterTable(tEnv, config, schema);
+            String expression = columnExpression(schema, col);
+            statements.addInsertSql(generateDeadLetterSQL(schema, col.getName(),
+                "'value exceeds " + col.getMaxBytes() + " bytes'",
+                FieldSizeFunctions.FIELD_BYTES + "(" + expression + ") > " + col.getMaxBytes()));
+        }
+    }
+
+    /**
+     * Dead-letter table shared by all rejections of a schema: the failing
+     * column, the reason and the original source row as JSON. Written to
+     * kafka.deadletter.topic, or as JSON files below deadletter.path.
+     */
+    private static void registerDeadLetterTable(StreamTableEnvironment tEnv, Properties config,
+                                                SchemaDefinition schema) {
+        String table = schema.getSinkTableName() + "_dlq";
+        if (Arrays.asList(tEnv.listTables()).contains(table)) {
+            return;
+        }
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("source_table", "STRING");
+        columns.put("column_name", "STRING");
+        columns.put("error", "STRING");
+        columns.put("record", "STRING");
+        String topic = config.getProperty("kafka.deadletter.topic", "").trim();
+        String path = config.getProperty("deadletter.path", "").trim();
+        if (!topic.isEmpty()) {
+            tEnv.executeSql(generateSideTopicDDL(config, table, topic, columns, Collections.emptyMap()));
+        } else if (!path.isEmpty()) {
+            // Local or distributed file system; one directory per sink table
+            StringBuilder ddl = new StringBuilder();
+            ddl.append("CREATE TABLE ").append(table).append(" (\n");
+            List<String> columnDefs = new ArrayList<>();
+            columns.forEach((name, type) -> columnDefs.add("  " + name + " " + type));
+            ddl.append(String.join(",\n", columnDefs)).append("\n");
+            Map<String, String> options = new LinkedHashMap<>();
+            options.put("connector", "filesystem");
+            options.put("path", path.replaceAll("/+$", "") + "/" + schema.getSinkTableName());
+            options.put("format", "json");
+            appendWithClause(ddl, options);
+            tEnv.executeSql(ddl.toString());
+        } else {
+            throw new IllegalArgumentException("Dead-letter routing requires kafka.deadletter.topic or deadletter.path");
+        }
+        LOG.info("Dead-letter table created: {}", table);
+    }
+
+    private static String generateDeadLetterSQL(SchemaDefinition schema, String columnName, String error,
+                                                String condition) {
+        List<String> entries = new ArrayList<>();
+        for (ColumnDefinition col : schema.getColumns()) {
+            entries.add("KEY '" + col.getName() + "' VALUE " + quoteIdentifier(col.getName()));
+        }
+        return "INSERT INTO " + schema.getSinkTableName() + "_dlq\n"
+             + "SELECT '" + schema.getBigQueryTable() + "', '" + columnName + "', " + error + ",\n"
+             + "  JSON_OBJECT(" + String.join(", ", entries) + ")\n"
+             + "FROM " + schema.getSourceTableName() + "\n"
+             + "WHERE " + condition;
+    }
+
+    /**
+     * Kafka table for side outputs, sharing the producer and delivery settings of the main sink.
+     */
+    private static String generateSideTopicDDL(Properties config, String tableName, String topic,
+                                               Map<String, String> columns, Map<String, String> keyOptions) {
+        StringBuilder ddl = new StringBuilder();
+        ddl.append("CREATE TABLE ").append(tableName).append(" (\n");
+        List<String> columnDefs = new ArrayList<>();
+        columns.forEach((name, type) -> columnDefs.add("  " + name + " " + type));
+        ddl.append(String.join(",\n", columnDefs)).append("\n");
+        
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("connector", "kafka");
+        options.put("topic", topic);
+        options.put("properties.bootstrap.servers", config.getProperty("kafka.bootstrap.servers"));
+        options.putAll(keyOptions);
+        options.put("value.format", "json");
+        producerProperties(config).forEach((key, value) -> options.put("properties." + key, value));
+        applyDeliveryGuarantee(config, tableName, options);
+        
+        appendWithClause(ddl, options);
+        return ddl.toString();
+    }
+
+    private static String requiredProperty(Properties config, String key) {
+        String value = config.getProperty(key, "").trim();
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Missing required property: " + key);
+        }
+        return value;
+    }
+
     /**
      * Check if column name is a SQL reserved keyword.
      */
@@ -298,6 +1602,17 @@ public class App {
         private String bigQueryDataset;
         private String bigQueryTable;
         private String kafkaTopic;
+        private String filter;
+        private String incrementalColumn;
+        private String incrementalLowerBound;
+        private boolean incrementalInclusive;
+        private String partitionColumn;
+        private List<String> partitions;
+        private boolean partitionOrdered;
+        private boolean recordSizeMetrics;
+        private int readStreams;
+        private boolean rateLimited;
+        private String transformErrorPolicy = "fail";
         private List<ColumnDefinition> columns;
 
         // Getters and setters
@@ -313,6 +1628,28 @@ public class App {
         public void setBigQueryTable(String bigQueryTable) { this.bigQueryTable = bigQueryTable; }
         public String getKafkaTopic() { return kafkaTopic; }
         public void setKafkaTopic(String kafkaTopic) { this.kafkaTopic = kafkaTopic; }
+        public String getFilter() { return filter; }
+        public void setFilter(String filter) { this.filter = filter; }
+        public String getIncrementalColumn() { return incrementalColumn; }
+        public void setIncrementalColumn(String incrementalColumn) { this.incrementalColumn = incrementalColumn; }
+        public String getIncrementalLowerBound() { return incrementalLowerBound; }
+        public void setIncrementalLowerBound(String incrementalLowerBound) { this.incrementalLowerBound = incrementalLowerBound; }
+        public boolean isIncrementalInclusive() { return incrementalInclusive; }
+        public void setIncrementalInclusive(boolean incrementalInclusive) { this.incrementalInclusive = incrementalInclusive; }
+        public String getPartitionColumn() { return partitionColumn; }
+        public void setPartitionColumn(String partitionColumn) { this.partitionColumn = partitionColumn; }
+        public List<String> getPartitions() { return partitions; }
+        public void setPartitions(List<String> partitions) { this.partitions = partitions; }
+        public boolean isPartitionOrdered() { return partitionOrdered; }
+        public void setPartitionOrdered(boolean partitionOrdered) { this.partitionOrdered = partitionOrdered; }
+        public boolean isRecordSizeMetrics() { return recordSizeMetrics; }
+        public void setRecordSizeMetrics(boolean recordSizeMetrics) { this.recordSizeMetrics = recordSizeMetrics; }
+        public int getReadStreams() { return readStreams; }
+        public void setReadStreams(int readStreams) { this.readStreams = readStreams; }
+        public boolean isRateLimited() { return rateLimited; }
+        public void setRateLimited(boolean rateLimited) { this.rateLimited = rateLimited; }
+        public String getTransformErrorPolicy() { return transformErrorPolicy; }
+        public void setTransformErrorPolicy(String transformErrorPolicy) { this.transformErrorPolicy = transformErrorPolicy; }
         public List<ColumnDefinition> getColumns() { return columns; }
         public void setColumns(List<ColumnDefinition> columns) { this.columns = columns; }
     }
@@ -324,6 +1661,8 @@ public class App {
         private boolean nullable;
         private boolean keyField;
         private String transform;
+        private int maxBytes;
+        private String oversize;
 
         // Getters and setters
         public String getName() { return name; }
@@ -338,5 +1677,10 @@ public class App {
         public void setKeyField(boolean keyField) { this.keyField = keyField; }
         public String getTransform() { return transform; }
         public void setTransform(String transform) { this.transform = transform; }
+        public int getMaxBytes() { return maxBytes; }
+        public void setMaxBytes(int maxBytes) { this.maxBytes = maxBytes; }
+        public String getOversize() { return oversize; }
+        public void setOversize(String oversize) { this.oversize = oversize; }
+        public boolean hasSizeBudget() { return maxBytes > 0; }
     }
 }
@@ -0,0 +1,113 @@
+package com.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Describes, for consumers, the Avro value schema Flink derives from the sink
+ * DDL: the sinkType and nullability of the schema.json columns. Nullable
+ * columns become ["null", type] unions defaulting to null.
+ */
+final class AvroSchemaGenerator {
+    private static final Logger LOG = LoggerFactory.getLogger(AvroSchemaGenerator.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private AvroSchemaGenerator() {
+    }
+
+    /**
+     * Schema of the sink row under the record name Flink's avro formats derive
+     * (org.apache.flink.avro.generated.record), as written to Kafka.
+     */
+    static String generate(App.SchemaDefinition schema) {
+        return generate(schema.getColumns(), "record", "org.apache.flink.avro.generated");
+    }
+
+    private static String generate(List<App.ColumnDefinition> columns, String name, String namespace) {
+        ObjectNode record = NODES.objectNode();
+        record.put("type", "record");
+        record.put("name", name);
+        record.put("namespace", namespace);
+
+        ArrayNode fields = record.putArray("fields");
+        for (App.ColumnDefinition col : columns) {
+            ObjectNode field = fields.addObject();
+            field.put("name", col.getName());
+            if (col.isNullable()) {
+                ArrayNode union = field.putArray("type");
+                union.add("null");
+                union.add(avroType(col.getSinkType()));
+                field.putNull("default");
+            } else {
+                field.set("type", avroType(col.getSinkType()));
+            }
+        }
+        return record.toString();
+    }
+
+    /**
+     * Write the schema as &lt;sinkTableName&gt;.avsc for consumers.
+     */
+    static void writeSchemaFile(String directory, App.SchemaDefinition schema, String avroSchema) throws IOException {
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        Path file = dir.resolve(schema.getSinkTableName() + ".avsc");
+        Object pretty = MAPPER.readValue(avroSchema, Object.class);
+        Files.write(file, MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(pretty)
+            .getBytes(StandardCharsets.UTF_8));
+        LOG.info("Avro schema written to {}", file);
+    }
+
+    private static JsonNode avroType(String sinkType) {
+        String type = sinkType.trim().toUpperCase();
+        if (type.startsWith("STRING") || type.startsWith("VARCHAR") || type.startsWith("CHAR")) {
+            return NODES.textNode("string");
+        } else if (type.equals("BIGINT")) {
+            return NODES.textNode("long");
+        } else if (type.equals("INT") || type.equals("INTEGER") || type.equals("SMALLINT") || type.equals("TINYINT")) {
+            return NODES.textNode("int");
+        } else if (type.equals("DOUBLE")) {
+            return NODES.textNode("double");
+        } else if (type.equals("FLOAT")) {
+            return NODES.textNode("float");
+        } else if (type.equals("BOOLEAN")) {
+            return NODES.textNode("boolean");
+        } else if (type.startsWith("BYTES") || type.startsWith("VARBINARY")) {
+            return NODES.textNode("bytes");
+        } else if (type.equals("DATE")) {
+            return logicalType("int", "date");
+        } else if (type.startsWith("TIMESTAMP")) {
+            // Same mapping as Flink: precision up to 3 is millis, TIMESTAMP defaults to 6
+            return logicalType("long", timestampPrecision(type) <= 3 ? "timestamp-millis" : "timestamp-micros");
+        }
+        throw new IllegalArgumentException("No Avro mapping for sinkType " + sinkType);
+    }
+
+    private static int timestampPrecision(String type) {
+        int open = type.indexOf('(');
+        if (open < 0) {
+            return 6;
+        }
+        return Integer.parseInt(type.substring(open + 1, type.indexOf(')', open)).trim());
+    }
+
+    private static ObjectNode logicalType(String type, String logicalType) {
+        ObjectNode node = NODES.objectNode();
+        node.put("type", type);
+        node.put("logicalType", logicalType);
+        return node;
+    }
+}
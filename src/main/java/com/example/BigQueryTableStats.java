@@ -0,0 +1,88 @@
+package com.example;
+
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.bigquery.BigQuery;
+import com.google.cloud.bigquery.BigQueryOptions;
+import com.google.cloud.bigquery.Table;
+import com.google.cloud.bigquery.TableId;
+import org.apache.flink.configuration.MemorySize;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Sizes the BigQuery reads of a batch job from table metadata when the
+ * adaptive batch scheduler is enabled: each table gets one Storage Read stream
+ * per flink.batch.bytes.per.task of stored data, clamped to the configured
+ * min/max parallelism, and the source parallelism is set to the largest of
+ * them. Downstream vertices are sized by the scheduler from the bytes actually
+ * produced, so small tables stop occupying slots beyond their source.
+ */
+final class BigQueryTableStats {
+    private static final Logger LOG = LoggerFactory.getLogger(BigQueryTableStats.class);
+
+    private BigQueryTableStats() {
+    }
+
+    static void applyAdaptiveParallelism(Properties config, List<App.SchemaDefinition> schemas) {
+        if (!RuntimeConfiguration.isAdaptiveBatch(config)) {
+            return;
+        }
+        long bytesPerTask = RuntimeConfiguration.bytesPerTask(config).getBytes();
+        int min = RuntimeConfiguration.intProperty(config, "flink.batch.parallelism.min", 1);
+        int max = RuntimeConfiguration.maxBatchParallelism(config);
+
+        BigQuery bigQuery;
+        try {
+            bigQuery = client(config);
+        } catch (IOException e) {
+            LOG.warn("Could not create BigQuery client; read parallelism is not derived from table sizes", e);
+            return;
+        }
+
+        int sourceParallelism = 0;
+        for (App.SchemaDefinition schema : schemas) {
+            TableId tableId = TableId.of(schema.getBigQueryProject(), schema.getBigQueryDataset(),
+                                         schema.getBigQueryTable());
+            Table table;
+            try {
+                table = bigQuery.getTable(tableId);
+            } catch (RuntimeException e) {
+                LOG.warn("Could not read metadata of {}; using the default read parallelism", tableId, e);
+                continue;
+            }
+            if (table == null || table.getNumBytes() == null) {
+                LOG.warn("No size metadata for {}; using the default read parallelism", tableId);
+                continue;
+            }
+            // Whole-table size: an upper bound when a filter or partition selection applies
+            long bytes = table.getNumBytes();
+            long tasks = (bytes + bytesPerTask - 1) / bytesPerTask;
+            int streams = (int) Math.max(min, Math.min(max, tasks));
+            schema.setReadStreams(streams);
+            sourceParallelism = Math.max(sourceParallelism, streams);
+            LOG.info("{}: {} rows, {} -> {} read stream(s)", tableId, table.getNumRows(),
+                     new MemorySize(bytes).toHumanReadableString(), streams);
+        }
+
+        if (sourceParallelism > 0 && config.getProperty("flink.batch.source.parallelism", "").trim().isEmpty()) {
+            config.setProperty("flink.batch.source.parallelism", String.valueOf(sourceParallelism));
+        }
+    }
+
+    private static BigQuery client(Properties config) throws IOException {
+        BigQueryOptions.Builder options = BigQueryOptions.newBuilder();
+        String credentialsPath = config.getProperty("bigquery.credentials.path", "").trim();
+        if (!credentialsPath.isEmpty()) {
+            try (InputStream in = new FileInputStream(credentialsPath)) {
+                options.setCredentials(GoogleCredentials.fromStream(in));
+            }
+        }
+        return options.build().getService();
+    }
+}
@@ -0,0 +1,141 @@
+package com.example;
+
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.co.KeyedCoProcessFunction;
+import org.apache.flink.types.Row;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.OutputTag;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Drops rows whose sink-typed content is unchanged since the last time their
+ * key was written. The first input carries the current rows, the second the
+ * 64-bit content hashes of the previous syncs, replayed from the compacted
+ * hash topic as a changelog of (row_key, content_hash). Only a hash per key
+ * is stored outside the job, so the hash topic stays small even for very
+ * large tables.
+ *
+ * <p>Both inputs are bounded, so the comparison runs once per key from an
+ * event-time timer at the end of input. Rows that are written emit their new
+ * hash to the {@link #HASHES} side output, which updates the hash topic.
+ */
+class ChangeDetectionFunction extends KeyedCoProcessFunction<String, Row, Row, Row> {
+    private static final long serialVersionUID = 1L;
+
+    static final TypeInformation<Row> HASH_TYPE =
+        Types.ROW_NAMED(new String[] {"row_key", "content_hash"}, Types.STRING, Types.LONG);
+    static final OutputTag<Row> HASHES = new OutputTag<>("content-hashes", HASH_TYPE);
+
+    private final TypeInformation<Row> rowType;
+
+    private transient ValueState<Row> current;
+    private transient ValueState<Long> storedHash;
+    private transient Counter unchanged;
+    private transient Counter changed;
+
+    ChangeDetectionFunction(TypeInformation<Row> rowType) {
+        this.rowType = rowType;
+    }
+
+    @Override
+    public void open(Configuration parameters) {
+        current = getRuntimeContext().getState(new ValueStateDescriptor<>("current", rowType));
+        storedHash = getRuntimeContext().getState(new ValueStateDescriptor<>("contentHash", Types.LONG));
+        unchanged = getRuntimeContext().getMetricGroup().counter("unchangedRows");
+        changed = getRuntimeContext().getMetricGroup().counter("changedRows");
+    }
+
+    @Override
+    public void processElement1(Row row, Context ctx, Collector<Row> out) throws Exception {
+        current.update(row);
+        ctx.timerService().registerEventTimeTimer(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void processElement2(Row hash, Context ctx, Collector<Row> out) throws Exception {
+        switch (hash.getKind()) {
+            case INSERT:
+            case UPDATE_AFTER:
+                storedHash.update((Long) hash.getField(1));
+                break;
+            case DELETE:
+                storedHash.clear();
+                break;
+            default:
+                // UPDATE_BEFORE is followed by its UPDATE_AFTER
+                return;
+        }
+        ctx.timerService().registerEventTimeTimer(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onTimer(long timestamp, OnTimerContext ctx, Collector<Row> out) throws Exception {
+        Row row = current.value();
+        if (row != null) {
+            long hash = hash(row);
+            Long previous = storedHash.value();
+            if (previous != null && previous == hash) {
+                unchanged.inc();
+            } else {
+                changed.inc();
+                out.collect(row);
+                ctx.output(HASHES, Row.of(ctx.getCurrentKey(), hash));
+            }
+        }
+        current.clear();
+        storedHash.clear();
+    }
+
+    /**
+     * 64-bit FNV-1a over every field, each preceded by its length (or a NULL
+     * marker) so that values cannot run into each other, with a murmur3 finish.
+     */
+    static long hash(Row row) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < row.getArity(); i++) {
+            Object value = row.getField(i);
+            if (value == null) {
+                hash = mix(hash, 0xff);
+                continue;
+            }
+            byte[] bytes = value instanceof byte[]
+                ? (byte[]) value : value.toString().getBytes(StandardCharsets.UTF_8);
+            int length = bytes.length;
+            for (int shift = 0; shift < 32; shift += 8) {
+                hash = mix(hash, length >>> shift);
+            }
+            for (byte b : bytes) {
+                hash = mix(hash, b);
+            }
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb1a9fe1a85e5L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long mix(long hash, int b) {
+        return (hash ^ (b & 0xff)) * 0x100000001b3L;
+    }
+
+    /**
+     * Key of a hash topic record, the row key built by {@link SnapshotDiffFunction.KeyFields}.
+     */
+    static class HashKey implements KeySelector<Row, String> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String getKey(Row hash) {
+            return (String) hash.getField(0);
+        }
+    }
+}
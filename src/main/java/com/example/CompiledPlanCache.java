@@ -0,0 +1,162 @@
+package com.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.flink.runtime.util.EnvironmentInformation;
+import org.apache.flink.table.api.CompiledPlan;
+import org.apache.flink.table.api.PlanReference;
+import org.apache.flink.table.api.StatementSet;
+import org.apache.flink.table.api.TableResult;
+import org.apache.flink.table.api.bridge.java.StreamTableEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Caches the optimized execution plan of the pipeline as a JSON plan file.
+ * The file name carries a hash of the effective configuration, the loaded
+ * schema definitions, the Flink version and the application build (jar
+ * implementation version, size and modification time), so any change to these inputs,
+ * including new SQL generation or UDF code, produces a new plan and stale
+ * plans are removed.
+ */
+final class CompiledPlanCache {
+    private static final Logger LOG = LoggerFactory.getLogger(CompiledPlanCache.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final File cacheDir;
+    private final File planFile;
+
+    private CompiledPlanCache(File cacheDir, String hash) {
+        this.cacheDir = cacheDir;
+        this.planFile = new File(cacheDir, "plan-" + hash + ".json");
+    }
+
+    /**
+     * Create the cache for this run, or return null when flink.plan.cache.dir is
+     * unset. Compiled plans are only supported by Flink in streaming mode.
+     */
+    static CompiledPlanCache create(Properties config, List<App.SchemaDefinition> schemas) throws IOException {
+        String dir = config.getProperty("flink.plan.cache.dir", "").trim();
+        if (dir.isEmpty()) {
+            return null;
+        }
+        if (!RuntimeConfiguration.isStreaming(config)) {
+            LOG.info("Plan cache disabled: compiled plans require flink.execution.mode=streaming");
+            return null;
+        }
+        if (App.isUpsertDiff(config) || App.isChangeDetection(config)) {
+            LOG.info("Plan cache disabled: snapshot diff and change detection are DataStream operators");
+            return null;
+        }
+        return new CompiledPlanCache(new File(dir), hash(config, schemas));
+    }
+
+    /**
+     * Execute the cached plan if it exists. Returns null on a cache miss or when
+     * the cached plan can no longer be restored.
+     */
+    TableResult executeCached(StreamTableEnvironment tEnv) {
+        if (!planFile.exists()) {
+            LOG.info("No cached plan at {}", planFile);
+            return null;
+        }
+        try {
+            CompiledPlan plan = tEnv.loadPlan(PlanReference.fromFile(planFile));
+            LOG.info("Executing cached plan {}", planFile);
+            return plan.execute();
+        } catch (Exception e) {
+            LOG.warn("Discarding unreadable cached plan {}", planFile, e);
+            planFile.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Compile the statement set, store the plan for later runs and execute it.
+     */
+    TableResult compileAndExecute(StatementSet statements) {
+        CompiledPlan plan = statements.compilePlan();
+        if (cacheDir.mkdirs()) {
+            LOG.info("Created plan cache directory {}", cacheDir);
+        }
+        removeStalePlans();
+        plan.writeToFile(planFile);
+        LOG.info("Compiled plan written to {}", planFile);
+        return plan.execute();
+    }
+
+    private void removeStalePlans() {
+        File[] plans = cacheDir.listFiles((d, name) -> name.startsWith("plan-") && name.endsWith(".json"));
+        if (plans == null) {
+            return;
+        }
+        for (File plan : plans) {
+            if (!plan.equals(planFile) && plan.delete()) {
+                LOG.info("Removed stale plan {}", plan);
+            }
+        }
+    }
+
+    private static String hash(Properties config, List<App.SchemaDefinition> schemas) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        // Effective properties after environment overrides, in stable order
+        TreeMap<String, String> sorted = new TreeMap<>();
+        config.stringPropertyNames().forEach(key -> sorted.put(key, config.getProperty(key)));
+        digest.update(sorted.toString().getBytes(StandardCharsets.UTF_8));
+        digest.update(MAPPER.writeValueAsBytes(schemas));
+        digest.update(EnvironmentInformation.getVersion().getBytes(StandardCharsets.UTF_8));
+        updateWithBuild(digest);
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.substring(0, 16);
+    }
+
+    /**
+     * Add the implementation version, size and modification time of the
+     * application jar; hashing the shaded jar itself would cost the startup
+     * time the cache saves. Classes run from a directory (IDE, tests) only
+     * contribute the version.
+     */
+    private static void updateWithBuild(MessageDigest digest) throws IOException {
+        String version = App.class.getPackage().getImplementationVersion();
+        digest.update(String.valueOf(version).getBytes(StandardCharsets.UTF_8));
+
+        CodeSource codeSource = App.class.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return;
+        }
+        Path jar;
+        try {
+            jar = Paths.get(codeSource.getLocation().toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            LOG.debug("Application location {} is not a local file", codeSource.getLocation(), e);
+            return;
+        }
+        if (!Files.isRegularFile(jar)) {
+            return;
+        }
+        String build = Files.size(jar) + "@" + Files.getLastModifiedTime(jar).toMillis();
+        digest.update(build.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example;
+
+import com.google.protobuf.CodedOutputStream;
+import org.apache.flink.api.common.serialization.SerializationSchema;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.types.logical.RowType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Encodes the key columns of a row without field names or tags: a null bitmap
+ * of ceil(n / 8) bytes (bit i set when column i is NULL) followed by the
+ * non-null columns in order, encoded by {@link RowFieldEncoder} with zigzag
+ * varints for integers, dates and timestamps.
+ */
+class CompositeKeySerializationSchema implements SerializationSchema<RowData> {
+    private static final long serialVersionUID = 1L;
+
+    private final RowFieldEncoder encoder;
+    private final int bitmapBytes;
+
+    CompositeKeySerializationSchema(RowType rowType) {
+        this.encoder = new RowFieldEncoder(rowType, rowType.getFieldCount(), true, "composite key");
+        this.bitmapBytes = (rowType.getFieldCount() + 7) / 8;
+    }
+
+    @Override
+    public byte[] serialize(RowData row) {
+        int fieldCount = encoder.fieldCount();
+        int size = bitmapBytes;
+        for (int i = 0; i < fieldCount; i++) {
+            if (!row.isNullAt(i)) {
+                size += encoder.size(row, i);
+            }
+        }
+
+        byte[] key = new byte[size];
+        for (int i = 0; i < fieldCount; i++) {
+            if (row.isNullAt(i)) {
+                key[i / 8] |= (byte) (1 << (i % 8));
+            }
+        }
+        CodedOutputStream out = CodedOutputStream.newInstance(key, bitmapBytes, size - bitmapBytes);
+        try {
+            for (int i = 0; i < fieldCount; i++) {
+                if (!row.isNullAt(i)) {
+                    encoder.write(out, row, i);
+                }
+            }
+            out.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not encode composite key", e);
+        }
+        return key;
+    }
+}
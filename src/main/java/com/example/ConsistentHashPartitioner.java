@@ -0,0 +1,73 @@
+package com.example;
+
+import org.apache.flink.streaming.connectors.kafka.partitioner.FlinkKafkaPartitioner;
+import org.apache.flink.table.data.RowData;
+
+/**
+ * Kafka sink partitioner for kafka.sink.partitioner=consistent-hash.
+ *
+ * <p>Keyed records go to a partition chosen by jump consistent hashing over the
+ * serialized key bytes, so a key always lands on the same partition whichever
+ * subtask writes it, and adding partitions only moves about 1/n of the keys.
+ * Records without a key are pinned: each subtask spreads them over its own
+ * slice of the partitions only, which keeps producer connections and batches
+ * per subtask bounded.
+ */
+public class ConsistentHashPartitioner extends FlinkKafkaPartitioner<RowData> {
+    private static final long serialVersionUID = 1L;
+
+    private int subtask;
+    private int subtasks = 1;
+    private int next;
+
+    @Override
+    public void open(int parallelInstanceId, int parallelInstances) {
+        this.subtask = parallelInstanceId;
+        this.subtasks = parallelInstances;
+    }
+
+    @Override
+    public int partition(RowData record, byte[] key, byte[] value, String targetTopic, int[] partitions) {
+        if (key != null && key.length > 0) {
+            return partitions[jumpHash(hash64(key), partitions.length)];
+        }
+        // Slice [first, first + size) of the partitions belongs to this subtask
+        int size = Math.max(1, (partitions.length + subtasks - 1) / subtasks);
+        int first = (subtask * size) % partitions.length;
+        int slice = Math.min(size, partitions.length - first);
+        next = (next + 1) % slice;
+        return partitions[first + next];
+    }
+
+    /**
+     * Jump consistent hash (Lamping and Veach): bucket in [0, buckets) for a 64-bit key.
+     */
+    static int jumpHash(long key, int buckets) {
+        long bucket = -1;
+        long jump = 0;
+        while (jump < buckets) {
+            bucket = jump;
+            key = key * 2862933555777941757L + 1;
+            jump = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    /**
+     * 64-bit FNV-1a over the key bytes, finished with a murmur3 mix so that
+     * short keys still use every bit.
+     */
+    static long hash64(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb1a9fe1a85e5L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Minimal in-process stand-in for a Confluent Schema Registry, covering the
+ * REST calls made by the avro-confluent format: registering and looking up
+ * subject versions and fetching schemas by id. Schemas are kept in memory and
+ * compatibility is not checked. Intended for local runs where the task
+ * managers share the client JVM (MiniCluster); never for production.
+ */
+final class EmbeddedSchemaRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(EmbeddedSchemaRegistry.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String CONTENT_TYPE = "application/vnd.schemaregistry.v1+json";
+
+    private final HttpServer server;
+    private final List<String> schemasById = new ArrayList<>();
+    private final Map<String, Integer> idsBySchema = new HashMap<>();
+    private final Map<String, List<Integer>> versionsBySubject = new LinkedHashMap<>();
+
+    private EmbeddedSchemaRegistry(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/", this::handle);
+    }
+
+    /**
+     * Start the stand-in when kafka.schema.registry.embedded=true and point
+     * kafka.schema.registry.url at it.
+     */
+    static EmbeddedSchemaRegistry startIfConfigured(Properties config) throws IOException {
+        if (!Boolean.parseBoolean(config.getProperty("kafka.schema.registry.embedded", "false").trim())) {
+            return null;
+        }
+        int port = RuntimeConfiguration.intProperty(config, "kafka.schema.registry.embedded.port", 8081);
+        EmbeddedSchemaRegistry registry = new EmbeddedSchemaRegistry(port);
+        registry.server.start();
+        String url = "http://localhost:" + registry.server.getAddress().getPort();
+        config.setProperty("kafka.schema.registry.url", url);
+        LOG.warn("Embedded schema registry started at {} (local testing only)", url);
+        return registry;
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+
+    private synchronized void handle(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+            String method = exchange.getRequestMethod();
+
+            if (path.length == 1 && path[0].equals("subjects") && method.equals("GET")) {
+                respond(exchange, 200, MAPPER.valueToTree(versionsBySubject.keySet()));
+            } else if (path.length == 3 && path[0].equals("subjects") && path[2].equals("versions")
+                       && method.equals("POST")) {
+                int id = register(path[1], readSchema(exchange));
+                respond(exchange, 200, MAPPER.createObjectNode().put("id", id));
+            } else if (path.length == 3 && path[0].equals("subjects") && path[2].equals("versions")) {
+                List<Integer> versions = new ArrayList<>();
+                for (int v = 1; v <= versionsBySubject.getOrDefault(path[1], new ArrayList<>()).size(); v++) {
+                    versions.add(v);
+                }
+                respond(exchange, 200, MAPPER.valueToTree(versions));
+            } else if (path.length == 2 && path[0].equals("subjects") && method.equals("POST")) {
+                String schema = readSchema(exchange);
+                List<Integer> ids = versionsBySubject.get(path[1]);
+                Integer id = idsBySchema.get(schema);
+                if (ids == null || id == null || !ids.contains(id)) {
+                    respondError(exchange, 404, 40403, "Schema not found");
+                } else {
+                    respond(exchange, 200, subjectVersion(path[1], ids.indexOf(id) + 1, id));
+                }
+            } else if (path.length == 4 && path[0].equals("subjects") && path[2].equals("versions")) {
+                List<Integer> ids = versionsBySubject.get(path[1]);
+                if (ids == null || ids.isEmpty()) {
+                    respondError(exchange, 404, 40401, "Subject not found");
+                    return;
+                }
+                int version = path[3].equals("latest") ? ids.size() : Integer.parseInt(path[3]);
+                if (version < 1 || version > ids.size()) {
+                    respondError(exchange, 404, 40402, "Version not found");
+                } else {
+                    respond(exchange, 200, subjectVersion(path[1], version, ids.get(version - 1)));
+                }
+            } else if (path.length == 3 && path[0].equals("schemas") && path[1].equals("ids")) {
+                int id = Integer.parseInt(path[2]);
+                if (id < 1 || id > schemasById.size()) {
+                    respondError(exchange, 404, 40403, "Schema not found");
+                } else {
+                    respond(exchange, 200, MAPPER.createObjectNode().put("schema", schemasById.get(id - 1)));
+                }
+            } else if (path.length == 1 && path[0].equals("config")) {
+                respond(exchange, 200, MAPPER.createObjectNode().put("compatibilityLevel", "NONE"));
+            } else {
+                respondError(exchange, 404, 404, "Unsupported endpoint " + method + " " + exchange.getRequestURI());
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Embedded schema registry request failed", e);
+            respondError(exchange, 500, 50001, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private int register(String subject, String schema) {
+        Integer id = idsBySchema.get(schema);
+        if (id == null) {
+            schemasById.add(schema);
+            id = schemasById.size();
+            idsBySchema.put(schema, id);
+        }
+        List<Integer> ids = versionsBySubject.computeIfAbsent(subject, s -> new ArrayList<>());
+        if (!ids.contains(id)) {
+            ids.add(id);
+            LOG.info("Registered schema id {} as version {} of subject {}", id, ids.size(), subject);
+        }
+        return id;
+    }
+
+    private ObjectNode subjectVersion(String subject, int version, int id) {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("subject", subject);
+        node.put("version", version);
+        node.put("id", id);
+        node.put("schema", schemasById.get(id - 1));
+        return node;
+    }
+
+    private static String readSchema(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            JsonNode body = MAPPER.readTree(in);
+            // Normalize formatting so equal schemas map to the same id
+            return MAPPER.readTree(body.get("schema").asText()).toString();
+        }
+    }
+
+    private static void respondError(HttpExchange exchange, int status, int errorCode, String message)
+            throws IOException {
+        respond(exchange, status, MAPPER.createObjectNode().put("error_code", errorCode).put("message", message));
+    }
+
+    private static void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
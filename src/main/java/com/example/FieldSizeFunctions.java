@@ -0,0 +1,171 @@
+package com.example;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.runtime.metrics.DescriptiveStatisticsHistogram;
+import org.apache.flink.table.annotation.DataTypeHint;
+import org.apache.flink.table.annotation.InputGroup;
+import org.apache.flink.table.api.TableEnvironment;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.binary.BinaryStringData;
+import org.apache.flink.table.functions.FunctionContext;
+import org.apache.flink.table.functions.ScalarFunction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Scalar functions enforcing the per-column size budget ("maxBytes" and
+ * "oversize" in schema.json) and measuring record sizes for the Kafka sink.
+ * Sizes are UTF-8 byte lengths read from Flink's internal string format.
+ */
+public final class FieldSizeFunctions {
+    static final String FIELD_BYTES = "FIELD_BYTES";
+    static final String TRUNCATE_BYTES = "TRUNCATE_BYTES";
+    static final String COMPRESS_FIELD = "COMPRESS_FIELD";
+    static final String OBSERVE_RECORD_SIZE = "OBSERVE_RECORD_SIZE";
+
+    /** Prefix of values replaced by their gzip-compressed, base64-encoded form. */
+    static final String COMPRESSED_PREFIX = "gzip+base64:";
+
+    private FieldSizeFunctions() {
+    }
+
+    static void register(TableEnvironment tEnv) {
+        tEnv.createTemporarySystemFunction(FIELD_BYTES, FieldBytes.class);
+        tEnv.createTemporarySystemFunction(TRUNCATE_BYTES, TruncateBytes.class);
+        tEnv.createTemporarySystemFunction(COMPRESS_FIELD, CompressField.class);
+        tEnv.createTemporarySystemFunction(OBSERVE_RECORD_SIZE, ObserveRecordSize.class);
+    }
+
+    /**
+     * UTF-8 size of a string in bytes.
+     */
+    public static class FieldBytes extends ScalarFunction {
+        public Integer eval(@DataTypeHint(value = "STRING", bridgedTo = StringData.class) StringData value) {
+            return value == null ? null : ((BinaryStringData) value).getSizeInBytes();
+        }
+    }
+
+    /**
+     * Cut a string to at most maxBytes UTF-8 bytes without splitting a character.
+     */
+    public static class TruncateBytes extends ScalarFunction {
+        public @DataTypeHint(value = "STRING", bridgedTo = StringData.class) StringData eval(
+                @DataTypeHint(value = "STRING", bridgedTo = StringData.class) StringData value, Integer maxBytes) {
+            if (value == null || maxBytes == null) {
+                return value;
+            }
+            return truncate(value, maxBytes);
+        }
+
+        static StringData truncate(StringData value, int maxBytes) {
+            BinaryStringData str = (BinaryStringData) value;
+            if (str.getSizeInBytes() <= maxBytes) {
+                return value;
+            }
+            byte[] bytes = str.toBytes();
+            int end = maxBytes;
+            // Step back over UTF-8 continuation bytes to a character boundary
+            while (end > 0 && (bytes[end] & 0xC0) == 0x80) {
+                end--;
+            }
+            return BinaryStringData.fromBytes(bytes, 0, end);
+        }
+    }
+
+    /**
+     * Replace strings larger than maxBytes by "gzip+base64:" followed by their
+     * compressed bytes; smaller values pass through unchanged. A value that
+     * still exceeds maxBytes once compressed is truncated instead and counted
+     * in the uncompressibleValues metric.
+     */
+    public static class CompressField extends ScalarFunction {
+        private transient Counter uncompressible;
+
+        @Override
+        public void open(FunctionContext context) throws Exception {
+            uncompressible = context.getMetricGroup().counter("uncompressibleValues");
+        }
+
+        public @DataTypeHint(value = "STRING", bridgedTo = StringData.class) StringData eval(
+                @DataTypeHint(value = "STRING", bridgedTo = StringData.class) StringData value, Integer maxBytes) {
+            if (value == null || maxBytes == null || ((BinaryStringData) value).getSizeInBytes() <= maxBytes) {
+                return value;
+            }
+            byte[] bytes = value.toBytes();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2 + 32);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            String encoded = COMPRESSED_PREFIX + Base64.getEncoder().encodeToString(compressed.toByteArray());
+            // Prefix and base64 are ASCII, so the length is the UTF-8 size
+            if (encoded.length() > maxBytes) {
+                if (uncompressible != null) {
+                    uncompressible.inc();
+                }
+                return TruncateBytes.truncate(value, maxBytes);
+            }
+            return StringData.fromString(encoded);
+        }
+    }
+
+    /**
+     * Records the approximate payload size of a row (UTF-8 bytes of strings,
+     * 8 bytes for any other non-null value) in the recordSizeBytes histogram.
+     * It measures the source values before conversion, truncation or
+     * compression, not the serialized Kafka record, and converts every column
+     * to a Java object on each row, so it is off by default. Always returns
+     * true so it can be used as a WHERE predicate.
+     */
+    public static class ObserveRecordSize extends ScalarFunction {
+        private transient Histogram recordSize;
+
+        @Override
+        public void open(FunctionContext context) throws Exception {
+            recordSize = context.getMetricGroup()
+                .histogram("recordSizeBytes", new DescriptiveStatisticsHistogram(10000));
+        }
+
+        public Boolean eval(@DataTypeHint(inputGroup = InputGroup.ANY) Object... fields) {
+            long size = 0;
+            for (Object field : fields) {
+                if (field instanceof String) {
+                    size += utf8Length((String) field);
+                } else if (field != null) {
+                    size += 8;
+                }
+            }
+            recordSize.update(size);
+            return true;
+        }
+
+        @Override
+        public boolean isDeterministic() {
+            return false;
+        }
+
+        static int utf8Length(String value) {
+            int length = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    length++;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (Character.isHighSurrogate(c)) {
+                    length += 4;
+                    i++;
+                } else {
+                    length += 3;
+                }
+            }
+            return length;
+        }
+    }
+}
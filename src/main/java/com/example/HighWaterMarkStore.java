@@ -0,0 +1,108 @@
+package com.example;
+
+import org.apache.flink.core.fs.FSDataOutputStream;
+import org.apache.flink.core.fs.FileStatus;
+import org.apache.flink.core.fs.FileSystem;
+import org.apache.flink.core.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+/**
+ * Persists the high-water mark of an incremental BigQuery read in a state file.
+ * The running job writes MAX(column) into a pending directory; the value only
+ * replaces the state file after the job finished successfully, so a failed run
+ * is simply re-read from the previous mark.
+ * Paths go through Flink's FileSystem, so local, HDFS and GCS locations work alike.
+ */
+final class HighWaterMarkStore {
+    private static final Logger LOG = LoggerFactory.getLogger(HighWaterMarkStore.class);
+
+    private final Path stateFile;
+    private final Path pendingDir;
+
+    HighWaterMarkStore(Properties config, String tableName) {
+        String dir = config.getProperty("bigquery.incremental.state.dir", "./state").trim();
+        this.stateFile = new Path(dir, tableName + ".hwm");
+        this.pendingDir = new Path(dir, tableName + ".hwm.pending");
+    }
+
+    /**
+     * Directory the job writes the new high-water mark into.
+     */
+    Path getPendingDir() {
+        return pendingDir;
+    }
+
+    /**
+     * Read the last committed high-water mark, or null on the first run.
+     * Leftovers of an earlier failed run are cleared.
+     */
+    String read() throws IOException {
+        FileSystem fs = stateFile.getFileSystem();
+        if (fs.exists(pendingDir)) {
+            fs.delete(pendingDir, true);
+        }
+        if (!fs.exists(stateFile)) {
+            LOG.info("No high-water mark at {}, performing full read", stateFile);
+            return null;
+        }
+        String value = readFirstLine(fs, stateFile);
+        LOG.info("Loaded high-water mark '{}' from {}", value, stateFile);
+        return value;
+    }
+
+    /**
+     * Promote the pending high-water mark written by a finished job.
+     * No pending file (no new rows) keeps the previous mark.
+     */
+    void commit() throws IOException {
+        FileSystem fs = pendingDir.getFileSystem();
+        if (!fs.exists(pendingDir)) {
+            LOG.info("No new rows read, high-water mark unchanged");
+            return;
+        }
+
+        String newValue = null;
+        for (FileStatus status : fs.listStatus(pendingDir)) {
+            String name = status.getPath().getName();
+            if (status.isDir() || name.startsWith(".") || name.startsWith("_")) {
+                continue;
+            }
+            String value = readFirstLine(fs, status.getPath());
+            if (value != null && !value.isEmpty()) {
+                newValue = value;
+            }
+        }
+
+        if (newValue == null) {
+            LOG.info("No new rows read, high-water mark unchanged");
+        } else {
+            Path tmp = new Path(stateFile.getParent(), stateFile.getName() + ".tmp");
+            try (FSDataOutputStream out = fs.create(tmp, FileSystem.WriteMode.OVERWRITE)) {
+                out.write(newValue.getBytes(StandardCharsets.UTF_8));
+            }
+            if (fs.exists(stateFile)) {
+                fs.delete(stateFile, false);
+            }
+            if (!fs.rename(tmp, stateFile)) {
+                throw new IOException("Could not move " + tmp + " to " + stateFile);
+            }
+            LOG.info("Committed high-water mark '{}' to {}", newValue, stateFile);
+        }
+        fs.delete(pendingDir, true);
+    }
+
+    private static String readFirstLine(FileSystem fs, Path path) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(fs.open(path), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            return line == null ? null : line.trim();
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.example;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.table.annotation.DataTypeHint;
+import org.apache.flink.table.api.TableEnvironment;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.binary.BinaryStringData;
+import org.apache.flink.table.functions.FunctionContext;
+import org.apache.flink.table.functions.ScalarFunction;
+
+/**
+ * Scalar functions converting nullable STRING columns to numbers straight from
+ * the UTF-8 bytes of Flink's internal string representation. Empty or blank
+ * values yield NULL like NULLIF(col, ''); malformed values yield NULL as well
+ * and are counted in the malformedNumericValues metric instead of throwing.
+ * With a second argument of TRUE, as used under transform.error.policy=fail,
+ * a malformed value fails the job like CAST does.
+ */
+public final class NumericParseFunctions {
+    static final String PARSE_DOUBLE = "PARSE_DOUBLE";
+    static final String PARSE_BIGINT = "PARSE_BIGINT";
+
+    private static final byte[] NAN = {'N', 'a', 'N'};
+    private static final byte[] INFINITY = {'I', 'n', 'f', 'i', 'n', 'i', 't', 'y'};
+    private static final long MIN_BY_10 = Long.MIN_VALUE / 10;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private NumericParseFunctions() {
+    }
+
+    static void register(TableEnvironment tEnv) {
+        tEnv.createTemporarySystemFunction(PARSE_DOUBLE, ParseDouble.class);
+        tEnv.createTemporarySystemFunction(PARSE_BIGINT, ParseBigint.class);
+    }
+
+    /**
+     * Name of the parse function for a sink type, or null when none applies.
+     */
+    static String functionFor(String sinkType) {
+        switch (sinkType.trim().toUpperCase()) {
+            case "DOUBLE":
+                return PARSE_DOUBLE;
+            case "BIGINT":
+                return PARSE_BIGINT;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Shared metric handling and whitespace trimming.
+     */
+    public abstract static class NumericParseFunction extends ScalarFunction {
+        transient Counter malformed;
+
+        @Override
+        public void open(FunctionContext context) throws Exception {
+            malformed = context.getMetricGroup().counter("malformedNumericValues");
+        }
+
+        final <T> T malformed() {
+            if (malformed != null) {
+                malformed.inc();
+            }
+            return null;
+        }
+
+        /**
+         * Throw when failOnMalformed is set and a non-blank value did not parse.
+         */
+        static <T> T orFail(T result, StringData value, boolean failOnMalformed, String sinkType) {
+            if (result == null && failOnMalformed && value != null) {
+                BinaryStringData str = (BinaryStringData) value;
+                int end = str.getSizeInBytes();
+                if (firstNonBlank(str, end) < end) {
+                    throw new NumberFormatException("Cannot convert '" + value + "' to " + sinkType);
+                }
+            }
+            return result;
+        }
+
+        static int firstNonBlank(BinaryStringData str, int end) {
+            int i = 0;
+            while (i < end && isBlank(str.byteAt(i))) {
+                i++;
+            }
+            return i;
+        }
+
+        static int lastNonBlank(BinaryStringData str, int start, int end) {
+            while (end > start && isBlank(str.byteAt(end - 1))) {
+                end--;
+            }
+            return end;
+        }
+
+        /**
+         * ASCII control characters and space; bytes of multi-byte UTF-8
+         * characters are negative and must not count as blank.
+         */
+        static boolean isBlank(byte b) {
+            return (b & 0xFF) <= ' ';
+        }
+
+        static boolean isDigit(byte b) {
+            return b >= '0' && b <= '9';
+        }
+    }
+
+    /**
+     * STRING to BIGINT. A fractional part is truncated, matching CAST semantics.
+     */
+    public static class ParseBigint extends NumericParseFunction {
+        public Long eval(@DataTypeHint(value = "STRING", bridgedTo = StringData.class) StringData value,
+                         boolean failOnMalformed) {
+            return orFail(eval(value), value, failOnMalformed, "BIGINT");
+        }
+
+        public Long eval(@DataTypeHint(value = "STRING", bridgedTo = StringData.class) StringData value) {
+            if (value == null) {
+                return null;
+            }
+            BinaryStringData str = (BinaryStringData) value;
+            str.ensureMaterialized();
+            int end = str.getSizeInBytes();
+            int i = firstNonBlank(str, end);
+            end = lastNonBlank(str, i, end);
+            if (i == end) {
+                return null;
+            }
+
+            boolean negative = false;
+            byte b = str.byteAt(i);
+            if (b == '-' || b == '+') {
+                negative = b == '-';
+                i++;
+            }
+
+            // Accumulate negatively so Long.MIN_VALUE stays representable
+            long result = 0;
+            boolean digits = false;
+            for (; i < end; i++) {
+                b = str.byteAt(i);
+                if (b == '.') {
+                    break;
+                }
+                if (!isDigit(b) || result < MIN_BY_10) {
+                    return malformed();
+                }
+                result *= 10;
+                int digit = b - '0';
+                if (result < Long.MIN_VALUE + digit) {
+                    return malformed();
+                }
+                result -= digit;
+                digits = true;
+            }
+            for (i++; i < end; i++) {
+                if (!isDigit(str.byteAt(i))) {
+                    return malformed();
+                }
+                digits = true;
+            }
+
+            if (!digits) {
+                return malformed();
+            }
+            if (!negative) {
+                if (result == Long.MIN_VALUE) {
+                    return malformed();
+                }
+                result = -result;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * STRING to DOUBLE. Plain decimal notation with up to 15 significant digits
+     * is converted exactly without allocation, as are NaN and Infinity. Only
+     * well-formed numbers with longer mantissas or large exponents fall back to
+     * Double.parseDouble; anything else is malformed without an exception.
+     */
+    public static class ParseDouble extends NumericParseFunction {
+        public Double eval(@DataTypeHint(value = "STRING", bridgedTo = StringData.class) StringData value,
+                           boolean failOnMalformed) {
+            return orFail(eval(value), value, failOnMalformed, "DOUBLE");
+        }
+
+        public Double eval(@DataTypeHint(value = "STRING", bridgedTo = StringData.class) StringData value) {
+            if (value == null) {
+                return null;
+            }
+            BinaryStringData str = (BinaryStringData) value;
+            str.ensureMaterialized();
+            int end = str.getSizeInBytes();
+            int start = firstNonBlank(str, end);
+            end = lastNonBlank(str, start, end);
+            if (start == end) {
+                return null;
+            }
+
+            int i = start;
+            boolean negative = false;
+            byte b = str.byteAt(i);
+            if (b == '-' || b == '+') {
+                negative = b == '-';
+                i++;
+            }
+            if (matches(str, i, end, NAN)) {
+                return Double.NaN;
+            }
+            if (matches(str, i, end, INFINITY)) {
+                return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            }
+
+            long mantissa = 0;
+            int exponent = 0;
+            boolean digits = false;
+            boolean exact = true;
+            boolean fraction = false;
+            for (; i < end; i++) {
+                b = str.byteAt(i);
+                if (isDigit(b)) {
+                    digits = true;
+                    if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                        mantissa = mantissa * 10 + (b - '0');
+                        if (fraction) {
+                            exponent--;
+                        }
+                    } else {
+                        exact = false;
+                        if (!fraction) {
+                            exponent++;
+                        }
+                    }
+                } else if (b == '.' && !fraction) {
+                    fraction = true;
+                } else {
+                    break;
+                }
+            }
+
+            if (i < end && digits && (b == 'e' || b == 'E')) {
+                int expStart = ++i;
+                boolean expNegative = false;
+                if (i < end && (str.byteAt(i) == '-' || str.byteAt(i) == '+')) {
+                    expNegative = str.byteAt(i) == '-';
+                    expStart = ++i;
+                }
+                int exp = 0;
+                for (; i < end && isDigit(str.byteAt(i)); i++) {
+                    exp = Math.min(exp * 10 + (str.byteAt(i) - '0'), 10000);
+                }
+                if (i == expStart) {
+                    return malformed();
+                }
+                exponent += expNegative ? -exp : exp;
+            }
+
+            if (i < end || !digits) {
+                return malformed();
+            }
+            if (!exact || exponent < -22 || exponent > 22) {
+                // Valid syntax outside the exact fast-path range
+                return parseSlow(str);
+            }
+            double result = exponent >= 0
+                ? mantissa * POWERS_OF_10[exponent]
+                : mantissa / POWERS_OF_10[-exponent];
+            return negative ? -result : result;
+        }
+
+        private static boolean matches(BinaryStringData str, int i, int end, byte[] literal) {
+            if (end - i != literal.length) {
+                return false;
+            }
+            for (int j = 0; j < literal.length; j++) {
+                if (str.byteAt(i + j) != literal[j]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Double parseSlow(BinaryStringData str) {
+            try {
+                return Double.parseDouble(str.toString().trim());
+            } catch (NumberFormatException e) {
+                return malformed();
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example;
+
+import org.apache.flink.api.common.serialization.SerializationSchema;
+import org.apache.flink.configuration.ConfigOption;
+import org.apache.flink.configuration.ConfigOptions;
+import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.table.api.ValidationException;
+import org.apache.flink.table.connector.ChangelogMode;
+import org.apache.flink.table.connector.format.EncodingFormat;
+import org.apache.flink.table.connector.sink.DynamicTableSink;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.factories.DynamicTableFactory;
+import org.apache.flink.table.factories.FactoryUtil;
+import org.apache.flink.table.factories.SerializationFormatFactory;
+import org.apache.flink.table.types.DataType;
+import org.apache.flink.table.types.logical.RowType;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Table format writing rows as protobuf messages whose field numbers come from
+ * {@link ProtobufSchemaGenerator}, so no generated Java classes are needed.
+ * Used by the Kafka sink when kafka.value.format=protobuf.
+ */
+public class ProtobufRowFormatFactory implements SerializationFormatFactory {
+    public static final String IDENTIFIER = "generated-protobuf";
+
+    public static final ConfigOption<String> FIELD_NUMBERS = ConfigOptions.key("field-numbers")
+        .stringType()
+        .noDefaultValue()
+        .withDescription("Comma-separated protobuf field numbers, one per physical column in order.");
+
+    @Override
+    public EncodingFormat<SerializationSchema<RowData>> createEncodingFormat(
+            DynamicTableFactory.Context context, ReadableConfig formatOptions) {
+        FactoryUtil.validateFactoryOptions(this, formatOptions);
+        int[] fieldNumbers = parseFieldNumbers(formatOptions.get(FIELD_NUMBERS));
+
+        return new EncodingFormat<SerializationSchema<RowData>>() {
+            @Override
+            public SerializationSchema<RowData> createRuntimeEncoder(
+                    DynamicTableSink.Context sinkContext, DataType physicalDataType) {
+                RowType rowType = (RowType) physicalDataType.getLogicalType();
+                if (rowType.getFieldCount() != fieldNumbers.length) {
+                    throw new ValidationException("Expected " + rowType.getFieldCount()
+                        + " protobuf field numbers but got " + fieldNumbers.length);
+                }
+                return new ProtobufRowSerializationSchema(rowType, fieldNumbers);
+            }
+
+            @Override
+            public ChangelogMode getChangelogMode() {
+                return ChangelogMode.insertOnly();
+            }
+        };
+    }
+
+    @Override
+    public String factoryIdentifier() {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public Set<ConfigOption<?>> requiredOptions() {
+        Set<ConfigOption<?>> options = new HashSet<>();
+        options.add(FIELD_NUMBERS);
+        return options;
+    }
+
+    @Override
+    public Set<ConfigOption<?>> optionalOptions() {
+        return Collections.emptySet();
+    }
+
+    private static int[] parseFieldNumbers(String value) {
+        String[] parts = value.split(",");
+        int[] numbers = new int[parts.length];
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < parts.length; i++) {
+            numbers[i] = Integer.parseInt(parts[i].trim());
+            if (numbers[i] < 1 || !seen.add(numbers[i])) {
+                throw new ValidationException("Invalid or duplicate protobuf field number: " + parts[i]);
+            }
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example;
+
+import com.google.protobuf.CodedOutputStream;
+import org.apache.flink.api.common.serialization.SerializationSchema;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.types.logical.RowType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Encodes a row as a protobuf message: NULL fields are omitted, integers use
+ * varints and strings are written as length-delimited UTF-8. The message size
+ * is computed first so every record is written into one exactly sized array.
+ */
+class ProtobufRowSerializationSchema implements SerializationSchema<RowData> {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] fieldNumbers;
+    private final RowFieldEncoder encoder;
+
+    ProtobufRowSerializationSchema(RowType rowType, int[] fieldNumbers) {
+        this.fieldNumbers = fieldNumbers;
+        this.encoder = new RowFieldEncoder(rowType, fieldNumbers.length, false, "protobuf");
+    }
+
+    @Override
+    public byte[] serialize(RowData row) {
+        int size = 0;
+        for (int i = 0; i < fieldNumbers.length; i++) {
+            if (!row.isNullAt(i)) {
+                size += CodedOutputStream.computeTagSize(fieldNumbers[i]) + encoder.size(row, i);
+            }
+        }
+
+        byte[] message = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(message);
+        try {
+            for (int i = 0; i < fieldNumbers.length; i++) {
+                if (!row.isNullAt(i)) {
+                    out.writeTag(fieldNumbers[i], encoder.wireType(i));
+                    encoder.write(out, row, i);
+                }
+            }
+            out.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not encode protobuf message", e);
+        }
+        return message;
+    }
+}
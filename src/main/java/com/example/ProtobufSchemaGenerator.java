@@ -0,0 +1,174 @@
+package com.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates the proto3 message of a Kafka sink from its schema.json columns.
+ * Field numbers are read back from the previously written .proto file so they
+ * stay stable across schema.json edits: existing columns keep their number,
+ * new columns get numbers above every number ever used, and removed columns
+ * are kept as reserved numbers and names.
+ */
+final class ProtobufSchemaGenerator {
+    private static final Logger LOG = LoggerFactory.getLogger(ProtobufSchemaGenerator.class);
+    private static final Pattern FIELD = Pattern.compile(
+        "^\\s*(?:optional\\s+)?\\w+\\s+(\\w+)\\s*=\\s*(\\d+)\\s*;");
+    private static final Pattern RESERVED = Pattern.compile("^\\s*reserved\\s+(.+);");
+
+    private final Path protoFile;
+    private final String messageName;
+    private final List<App.ColumnDefinition> columns;
+    private final Map<String, Integer> fieldNumbers = new LinkedHashMap<>();
+    private final TreeSet<Integer> reservedNumbers = new TreeSet<>();
+    private final TreeSet<String> reservedNames = new TreeSet<>();
+
+    ProtobufSchemaGenerator(String directory, App.SchemaDefinition schema) throws IOException {
+        this.protoFile = Paths.get(directory).resolve(schema.getSinkTableName() + ".proto");
+        this.messageName = messageName(schema.getSinkTableName());
+        this.columns = schema.getColumns();
+        assignFieldNumbers();
+    }
+
+    /**
+     * Field numbers in column order, as expected by the generated-protobuf format.
+     */
+    int[] getFieldNumbers() {
+        int[] numbers = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            numbers[i] = fieldNumbers.get(columns.get(i).getName());
+        }
+        return numbers;
+    }
+
+    /**
+     * Write the .proto file for consumers; it is also the source of truth for
+     * field numbers on the next start.
+     */
+    void writeProtoFile() throws IOException {
+        StringBuilder proto = new StringBuilder();
+        proto.append("// Generated from schema.json; field numbers are stable, do not renumber.\n");
+        proto.append("syntax = \"proto3\";\n\n");
+        proto.append("package com.example.proto;\n\n");
+        proto.append("message ").append(messageName).append(" {\n");
+        if (!reservedNumbers.isEmpty()) {
+            proto.append("  reserved ").append(joinNumbers(reservedNumbers)).append(";\n");
+        }
+        if (!reservedNames.isEmpty()) {
+            List<String> quoted = new ArrayList<>();
+            reservedNames.forEach(name -> quoted.add("\"" + name + "\""));
+            proto.append("  reserved ").append(String.join(", ", quoted)).append(";\n");
+        }
+        for (App.ColumnDefinition col : columns) {
+            proto.append("  ");
+            if (col.isNullable()) {
+                proto.append("optional ");
+            }
+            proto.append(protoType(col.getSinkType())).append(" ").append(col.getName())
+                 .append(" = ").append(fieldNumbers.get(col.getName())).append(";\n");
+        }
+        proto.append("}\n");
+
+        Files.createDirectories(protoFile.getParent());
+        Files.write(protoFile, proto.toString().getBytes(StandardCharsets.UTF_8));
+        LOG.info("Protobuf schema written to {}", protoFile);
+    }
+
+    private void assignFieldNumbers() throws IOException {
+        Map<String, Integer> previous = new LinkedHashMap<>();
+        if (Files.exists(protoFile)) {
+            for (String line : Files.readAllLines(protoFile, StandardCharsets.UTF_8)) {
+                Matcher field = FIELD.matcher(line);
+                Matcher reserved = RESERVED.matcher(line);
+                if (field.find()) {
+                    previous.put(field.group(1), Integer.parseInt(field.group(2)));
+                } else if (reserved.find()) {
+                    for (String entry : reserved.group(1).split(",")) {
+                        entry = entry.trim();
+                        if (entry.startsWith("\"")) {
+                            reservedNames.add(entry.replace("\"", ""));
+                        } else if (!entry.isEmpty()) {
+                            reservedNumbers.add(Integer.parseInt(entry));
+                        }
+                    }
+                }
+            }
+        }
+
+        int next = 1;
+        for (int number : previous.values()) {
+            next = Math.max(next, number + 1);
+        }
+        if (!reservedNumbers.isEmpty()) {
+            next = Math.max(next, reservedNumbers.last() + 1);
+        }
+
+        for (App.ColumnDefinition col : columns) {
+            Integer number = previous.remove(col.getName());
+            if (number == null) {
+                if (reservedNames.contains(col.getName())) {
+                    LOG.warn("Column {} reuses a removed protobuf field name; it gets a new number", col.getName());
+                }
+                number = next++;
+            }
+            fieldNumbers.put(col.getName(), number);
+        }
+
+        // Columns dropped from schema.json must never be reused on the wire
+        for (Map.Entry<String, Integer> removed : previous.entrySet()) {
+            reservedNames.add(removed.getKey());
+            reservedNumbers.add(removed.getValue());
+        }
+        reservedNames.removeAll(fieldNumbers.keySet());
+    }
+
+    static String protoType(String sinkType) {
+        String type = sinkType.trim().toUpperCase();
+        if (type.startsWith("STRING") || type.startsWith("VARCHAR") || type.startsWith("CHAR")) {
+            return "string";
+        } else if (type.equals("BIGINT") || type.startsWith("TIMESTAMP")) {
+            return "int64";
+        } else if (type.equals("INT") || type.equals("INTEGER") || type.equals("SMALLINT")
+                   || type.equals("TINYINT") || type.equals("DATE")) {
+            return "int32";
+        } else if (type.equals("DOUBLE")) {
+            return "double";
+        } else if (type.equals("FLOAT")) {
+            return "float";
+        } else if (type.equals("BOOLEAN")) {
+            return "bool";
+        } else if (type.startsWith("BYTES") || type.startsWith("VARBINARY")) {
+            return "bytes";
+        }
+        throw new IllegalArgumentException("No protobuf mapping for sinkType " + sinkType);
+    }
+
+    private static String joinNumbers(TreeSet<Integer> numbers) {
+        List<String> values = new ArrayList<>();
+        numbers.forEach(n -> values.add(String.valueOf(n)));
+        return String.join(", ", values);
+    }
+
+    private static String messageName(String tableName) {
+        StringBuilder name = new StringBuilder();
+        for (String part : tableName.split("[^A-Za-z0-9]+")) {
+            if (!part.isEmpty()) {
+                name.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1));
+            }
+        }
+        return name.length() == 0 || Character.isDigit(name.charAt(0)) ? "Record" + name : name.toString();
+    }
+}
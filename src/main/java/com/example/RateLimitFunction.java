@@ -0,0 +1,204 @@
+package com.example;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.table.annotation.DataTypeHint;
+import org.apache.flink.table.annotation.InputGroup;
+import org.apache.flink.table.api.TableEnvironment;
+import org.apache.flink.table.functions.FunctionContext;
+import org.apache.flink.table.functions.ScalarFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Throttles the rows read from BigQuery. Used as an always-true WHERE
+ * predicate right after the source scan, so sleeping here backpressures the
+ * source subtask and with it the Kafka ingress of the job.
+ *
+ * <p>Each subtask runs a token bucket for rows and one for bytes (UTF-8 bytes
+ * of strings, 8 bytes for other values) holding at most one second of budget.
+ * Its limit is the smaller of the per-subtask limit and its share of the
+ * global limit, which is split evenly over all source subtasks of the job.
+ * When rate.limit.file is set, the limits are re-read from that properties
+ * file whenever it changes, so throttling can be adjusted without a restart.
+ */
+public class RateLimitFunction extends ScalarFunction {
+    static final String RATE_LIMIT = "RATE_LIMIT";
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOG = LoggerFactory.getLogger(RateLimitFunction.class);
+    private static final long FILE_CHECK_INTERVAL_MS = 5000L;
+
+    private final Properties limits;
+    private final int sourceSubtasks;
+    private final String limitFile;
+
+    private transient double rowsPerSecond;
+    private transient double bytesPerSecond;
+    private transient double rowTokens;
+    private transient double byteTokens;
+    private transient long lastRefillNanos;
+    private transient long nextFileCheck;
+    private transient long fileModified;
+    private transient Counter throttledMillis;
+
+    private RateLimitFunction(Properties limits, int sourceSubtasks, String limitFile) {
+        this.limits = limits;
+        this.sourceSubtasks = sourceSubtasks;
+        this.limitFile = limitFile;
+    }
+
+    /**
+     * Register RATE_LIMIT when any limit or a limit file is configured.
+     * Returns false when reads are not throttled.
+     */
+    static boolean register(TableEnvironment tEnv, Properties config, int sourceSubtasks) {
+        Properties limits = new Properties();
+        for (String key : config.stringPropertyNames()) {
+            if (key.startsWith("rate.limit.")) {
+                limits.setProperty(key, config.getProperty(key).trim());
+            }
+        }
+        String limitFile = limits.getProperty("rate.limit.file", "");
+        RateLimitFunction function = new RateLimitFunction(limits, Math.max(sourceSubtasks, 1),
+                                                           limitFile.isEmpty() ? null : limitFile);
+        function.applyLimits(limits);
+        if (limitFile.isEmpty() && function.rowsPerSecond <= 0 && function.bytesPerSecond <= 0) {
+            return false;
+        }
+        tEnv.createTemporarySystemFunction(RATE_LIMIT, function);
+        LOG.info("BigQuery reads throttled to {} rows/s and {} bytes/s per source subtask ({} subtasks){}",
+                 limitText(function.rowsPerSecond), limitText(function.bytesPerSecond), sourceSubtasks,
+                 limitFile.isEmpty() ? "" : ", limits watched in " + limitFile);
+        return true;
+    }
+
+    @Override
+    public void open(FunctionContext context) throws Exception {
+        applyLimits(limits);
+        if (limitFile != null) {
+            reloadIfChanged();
+        }
+        rowTokens = rowsPerSecond;
+        byteTokens = bytesPerSecond;
+        lastRefillNanos = System.nanoTime();
+        throttledMillis = context.getMetricGroup().counter("throttledMillis");
+    }
+
+    public Boolean eval(@DataTypeHint(inputGroup = InputGroup.ANY) Object... fields) throws InterruptedException {
+        if (limitFile != null && System.currentTimeMillis() >= nextFileCheck) {
+            reloadIfChanged();
+        }
+        if (rowsPerSecond <= 0 && bytesPerSecond <= 0) {
+            return true;
+        }
+
+        refill();
+        rowTokens -= 1;
+        if (bytesPerSecond > 0) {
+            byteTokens -= rowBytes(fields);
+        }
+
+        // Both buckets may go negative; wait until the larger debt is paid off
+        double waitSeconds = 0;
+        if (rowsPerSecond > 0 && rowTokens < 0) {
+            waitSeconds = -rowTokens / rowsPerSecond;
+        }
+        if (bytesPerSecond > 0 && byteTokens < 0) {
+            waitSeconds = Math.max(waitSeconds, -byteTokens / bytesPerSecond);
+        }
+        long waitMillis = (long) Math.ceil(waitSeconds * 1000);
+        if (waitMillis > 0) {
+            Thread.sleep(waitMillis);
+            throttledMillis.inc(waitMillis);
+            refill();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastRefillNanos) / 1e9;
+        lastRefillNanos = now;
+        // Bursts are capped at one second of budget
+        if (rowsPerSecond > 0) {
+            rowTokens = Math.min(rowsPerSecond, rowTokens + elapsedSeconds * rowsPerSecond);
+        }
+        if (bytesPerSecond > 0) {
+            byteTokens = Math.min(bytesPerSecond, byteTokens + elapsedSeconds * bytesPerSecond);
+        }
+    }
+
+    private void reloadIfChanged() {
+        nextFileCheck = System.currentTimeMillis() + FILE_CHECK_INTERVAL_MS;
+        Path path = Paths.get(limitFile);
+        try {
+            if (!Files.exists(path)) {
+                return;
+            }
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            if (modified == fileModified) {
+                return;
+            }
+            Properties updated = new Properties();
+            updated.putAll(limits);
+            try (InputStream in = Files.newInputStream(path)) {
+                updated.load(in);
+            }
+            fileModified = modified;
+            double oldRows = rowsPerSecond;
+            double oldBytes = bytesPerSecond;
+            applyLimits(updated);
+            if (oldRows != rowsPerSecond || oldBytes != bytesPerSecond) {
+                rowTokens = Math.min(rowTokens, rowsPerSecond);
+                byteTokens = Math.min(byteTokens, bytesPerSecond);
+                LOG.info("Rate limit from {}: {} rows/s and {} bytes/s per subtask",
+                         limitFile, limitText(rowsPerSecond), limitText(bytesPerSecond));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // Keep the current limits on a partially written or invalid file
+            LOG.warn("Could not reload rate limits from {}", limitFile, e);
+        }
+    }
+
+    private void applyLimits(Properties source) {
+        rowsPerSecond = effectiveLimit(source, "rate.limit.rows.per.second", "rate.limit.global.rows.per.second");
+        bytesPerSecond = effectiveLimit(source, "rate.limit.bytes.per.second", "rate.limit.global.bytes.per.second");
+    }
+
+    private double effectiveLimit(Properties source, String subtaskKey, String globalKey) {
+        double subtask = RuntimeConfiguration.longProperty(source, subtaskKey, 0L);
+        double global = RuntimeConfiguration.longProperty(source, globalKey, 0L) / (double) sourceSubtasks;
+        if (subtask <= 0) {
+            return Math.max(global, 0);
+        }
+        return global > 0 ? Math.min(subtask, global) : subtask;
+    }
+
+    private static long rowBytes(Object[] fields) {
+        long size = 0;
+        for (Object field : fields) {
+            if (field instanceof String) {
+                size += FieldSizeFunctions.ObserveRecordSize.utf8Length((String) field);
+            } else if (field != null) {
+                size += 8;
+            }
+        }
+        return size;
+    }
+
+    private static String limitText(double limit) {
+        return limit > 0 ? String.valueOf((long) limit) : "unlimited";
+    }
+}
@@ -0,0 +1,182 @@
+package com.example;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.LogicalTypeRoot;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.utils.LogicalTypeChecks;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Field encoding shared by the protobuf value and composite key formats.
+ * Values are written without tags: strings and bytes as a varint length plus
+ * the raw bytes, integers, dates and timestamps (epoch millis) as varints
+ * (zigzag encoded when requested), booleans as one byte and floating point
+ * values fixed little-endian. Strings and bytes are fetched once by
+ * {@link #size} and kept until {@link #write}, so a record can be sized
+ * exactly before it is written.
+ */
+final class RowFieldEncoder implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final LogicalTypeRoot[] types;
+    private final int[] precisions;
+    private final boolean zigZag;
+    private transient byte[][] bytesFields;
+
+    RowFieldEncoder(RowType rowType, int fieldCount, boolean zigZag, String encoding) {
+        this.types = new LogicalTypeRoot[fieldCount];
+        this.precisions = new int[fieldCount];
+        this.zigZag = zigZag;
+        for (int i = 0; i < fieldCount; i++) {
+            LogicalType type = rowType.getTypeAt(i);
+            types[i] = type.getTypeRoot();
+            switch (types[i]) {
+                case CHAR:
+                case VARCHAR:
+                case BINARY:
+                case VARBINARY:
+                case BOOLEAN:
+                case TINYINT:
+                case SMALLINT:
+                case INTEGER:
+                case DATE:
+                case BIGINT:
+                case FLOAT:
+                case DOUBLE:
+                    break;
+                case TIMESTAMP_WITHOUT_TIME_ZONE:
+                    precisions[i] = LogicalTypeChecks.getPrecision(type);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported type for " + encoding + " encoding: " + type);
+            }
+        }
+    }
+
+    int fieldCount() {
+        return types.length;
+    }
+
+    /**
+     * Protobuf wire type of field i.
+     */
+    int wireType(int i) {
+        switch (types[i]) {
+            case CHAR:
+            case VARCHAR:
+            case BINARY:
+            case VARBINARY:
+                return WireFormat.WIRETYPE_LENGTH_DELIMITED;
+            case FLOAT:
+                return WireFormat.WIRETYPE_FIXED32;
+            case DOUBLE:
+                return WireFormat.WIRETYPE_FIXED64;
+            default:
+                return WireFormat.WIRETYPE_VARINT;
+        }
+    }
+
+    /**
+     * Encoded size of the non-null field i.
+     */
+    int size(RowData row, int i) {
+        if (bytesFields == null) {
+            bytesFields = new byte[types.length][];
+        }
+        switch (types[i]) {
+            case CHAR:
+            case VARCHAR:
+                bytesFields[i] = row.getString(i).toBytes();
+                return CodedOutputStream.computeByteArraySizeNoTag(bytesFields[i]);
+            case BINARY:
+            case VARBINARY:
+                bytesFields[i] = row.getBinary(i);
+                return CodedOutputStream.computeByteArraySizeNoTag(bytesFields[i]);
+            case BOOLEAN:
+                return 1;
+            case TINYINT:
+                return int32Size(row.getByte(i));
+            case SMALLINT:
+                return int32Size(row.getShort(i));
+            case INTEGER:
+            case DATE:
+                return int32Size(row.getInt(i));
+            case BIGINT:
+                return int64Size(row.getLong(i));
+            case FLOAT:
+                return 4;
+            case DOUBLE:
+                return 8;
+            default:
+                return int64Size(row.getTimestamp(i, precisions[i]).getMillisecond());
+        }
+    }
+
+    /**
+     * Write the non-null field i, after {@link #size} was called for it.
+     */
+    void write(CodedOutputStream out, RowData row, int i) throws IOException {
+        switch (types[i]) {
+            case CHAR:
+            case VARCHAR:
+            case BINARY:
+            case VARBINARY:
+                out.writeByteArrayNoTag(bytesFields[i]);
+                bytesFields[i] = null;
+                break;
+            case BOOLEAN:
+                out.writeBoolNoTag(row.getBoolean(i));
+                break;
+            case TINYINT:
+                writeInt32(out, row.getByte(i));
+                break;
+            case SMALLINT:
+                writeInt32(out, row.getShort(i));
+                break;
+            case INTEGER:
+            case DATE:
+                writeInt32(out, row.getInt(i));
+                break;
+            case BIGINT:
+                writeInt64(out, row.getLong(i));
+                break;
+            case FLOAT:
+                out.writeFloatNoTag(row.getFloat(i));
+                break;
+            case DOUBLE:
+                out.writeDoubleNoTag(row.getDouble(i));
+                break;
+            default:
+                writeInt64(out, row.getTimestamp(i, precisions[i]).getMillisecond());
+        }
+    }
+
+    private int int32Size(int value) {
+        return zigZag ? CodedOutputStream.computeSInt32SizeNoTag(value) : CodedOutputStream.computeInt32SizeNoTag(value);
+    }
+
+    private int int64Size(long value) {
+        return zigZag ? CodedOutputStream.computeSInt64SizeNoTag(value) : CodedOutputStream.computeInt64SizeNoTag(value);
+    }
+
+    private void writeInt32(CodedOutputStream out, int value) throws IOException {
+        if (zigZag) {
+            out.writeSInt32NoTag(value);
+        } else {
+            out.writeInt32NoTag(value);
+        }
+    }
+
+    private void writeInt64(CodedOutputStream out, long value) throws IOException {
+        if (zigZag) {
+            out.writeSInt64NoTag(value);
+        } else {
+            out.writeInt64NoTag(value);
+        }
+    }
+}
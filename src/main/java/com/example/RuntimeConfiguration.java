@@ -0,0 +1,368 @@
+package com.example;
+
+import org.apache.flink.api.common.BatchShuffleMode;
+import org.apache.flink.api.common.RuntimeExecutionMode;
+import org.apache.flink.configuration.BatchExecutionOptions;
+import org.apache.flink.configuration.CheckpointingOptions;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.CoreOptions;
+import org.apache.flink.configuration.ExecutionOptions;
+import org.apache.flink.configuration.JobManagerOptions;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.configuration.PipelineOptions;
+import org.apache.flink.configuration.RestartStrategyOptions;
+import org.apache.flink.configuration.SlowTaskDetectorOptions;
+import org.apache.flink.configuration.StateBackendOptions;
+import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.streaming.api.CheckpointingMode;
+import org.apache.flink.streaming.api.environment.CheckpointConfig;
+import org.apache.flink.streaming.api.environment.ExecutionCheckpointingOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Translates the flink.* runtime settings of config.properties into a Flink
+ * {@link Configuration} that is handed to the environment executing the pipeline.
+ */
+final class RuntimeConfiguration {
+    private static final Logger LOG = LoggerFactory.getLogger(RuntimeConfiguration.class);
+
+    private RuntimeConfiguration() {
+    }
+
+    /**
+     * Build the Flink configuration from external properties.
+     * Keys that are absent leave the corresponding Flink default untouched.
+     */
+    static Configuration fromProperties(Properties config) {
+        Configuration conf = new Configuration();
+        conf.set(ExecutionOptions.RUNTIME_MODE, isStreaming(config)
+            ? RuntimeExecutionMode.STREAMING : RuntimeExecutionMode.BATCH);
+
+        int parallelism = intProperty(config, "flink.parallelism", -1);
+        if (isAdaptiveBatch(config)) {
+            // A fixed default parallelism would pin every vertex
+            applyAdaptiveBatch(config, conf);
+        } else if (parallelism > 0) {
+            conf.set(CoreOptions.DEFAULT_PARALLELISM, parallelism);
+            LOG.info("Default parallelism: {}", parallelism);
+        }
+
+        applyPipelineTuning(config, conf);
+        applyRestartStrategy(config, conf);
+        applyCheckpointing(config, conf);
+        applyStateBackend(config, conf);
+        return conf;
+    }
+
+    static boolean isStreaming(Properties config) {
+        return "streaming".equalsIgnoreCase(config.getProperty("flink.execution.mode", "batch").trim());
+    }
+
+    static boolean isAdaptiveBatch(Properties config) {
+        return !isStreaming(config)
+               && Boolean.parseBoolean(config.getProperty("flink.batch.adaptive", "false").trim());
+    }
+
+    static MemorySize bytesPerTask(Properties config) {
+        String value = config.getProperty("flink.batch.bytes.per.task", "256mb").trim();
+        try {
+            return MemorySize.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Property 'flink.batch.bytes.per.task' must be a size such as 256mb: "
+                + value, e);
+        }
+    }
+
+    /**
+     * Upper bound of the adaptive parallelism; flink.parallelism when not set.
+     */
+    static int maxBatchParallelism(Properties config) {
+        return intProperty(config, "flink.batch.parallelism.max",
+            Math.max(intProperty(config, "flink.parallelism", 128), 1));
+    }
+
+    /**
+     * Adaptive batch scheduler: each vertex gets a parallelism derived from the
+     * data it consumes (flink.batch.bytes.per.task per subtask) between the
+     * configured min and max. Source vertices use flink.batch.source.parallelism,
+     * which {@link BigQueryTableStats} derives from the table sizes when unset.
+     */
+    private static void applyAdaptiveBatch(Properties config, Configuration conf) {
+        int min = intProperty(config, "flink.batch.parallelism.min", 1);
+        int max = maxBatchParallelism(config);
+        if (min < 1 || max < min) {
+            throw new IllegalArgumentException("flink.batch.parallelism.min/max must satisfy 1 <= min <= max");
+        }
+        conf.set(JobManagerOptions.SCHEDULER, JobManagerOptions.SchedulerType.AdaptiveBatch);
+        conf.set(BatchExecutionOptions.ADAPTIVE_AUTO_PARALLELISM_ENABLED, true);
+        conf.set(BatchExecutionOptions.ADAPTIVE_AUTO_PARALLELISM_MIN_PARALLELISM, min);
+        conf.set(BatchExecutionOptions.ADAPTIVE_AUTO_PARALLELISM_MAX_PARALLELISM, max);
+        conf.set(BatchExecutionOptions.ADAPTIVE_AUTO_PARALLELISM_AVG_DATA_VOLUME_PER_TASK, bytesPerTask(config));
+
+        int sourceParallelism = intProperty(config, "flink.batch.source.parallelism", 0);
+        if (sourceParallelism > 0) {
+            conf.set(BatchExecutionOptions.ADAPTIVE_AUTO_PARALLELISM_DEFAULT_SOURCE_PARALLELISM, sourceParallelism);
+        }
+        LOG.info("Adaptive batch scheduler: parallelism {}..{}, {} per task, source parallelism {}",
+                 min, max, bytesPerTask(config).toHumanReadableString(),
+                 sourceParallelism > 0 ? sourceParallelism : "default");
+        applySpeculativeExecution(config, conf);
+    }
+
+    static boolean isSpeculative(Properties config) {
+        if (!Boolean.parseBoolean(config.getProperty("flink.batch.speculative", "false").trim())) {
+            return false;
+        }
+        if (!isAdaptiveBatch(config)) {
+            throw new IllegalArgumentException("flink.batch.speculative requires flink.execution.mode=batch"
+                + " and flink.batch.adaptive=true");
+        }
+        return true;
+    }
+
+    /**
+     * Speculative execution starts extra attempts of tasks running slower than
+     * flink.batch.speculative.slow.multiplier times the median of the finished
+     * share (flink.batch.speculative.slow.ratio) of their vertex. The Kafka sink
+     * never runs speculatively; it reads over blocking exchanges, which only
+     * expose the output of the attempt that finished first.
+     */
+    private static void applySpeculativeExecution(Properties config, Configuration conf) {
+        if (!isSpeculative(config)) {
+            return;
+        }
+        conf.set(BatchExecutionOptions.SPECULATIVE_ENABLED, true);
+        conf.set(BatchExecutionOptions.SPECULATIVE_MAX_CONCURRENT_EXECUTIONS,
+            intProperty(config, "flink.batch.speculative.max.attempts", 2));
+        conf.set(BatchExecutionOptions.BLOCK_SLOW_NODE_DURATION, Duration.ofMillis(
+            longProperty(config, "flink.batch.speculative.block.duration", 60000L)));
+        conf.set(SlowTaskDetectorOptions.EXECUTION_TIME_BASELINE_MULTIPLIER, Double.parseDouble(
+            config.getProperty("flink.batch.speculative.slow.multiplier", "1.5").trim()));
+        conf.set(SlowTaskDetectorOptions.EXECUTION_TIME_BASELINE_RATIO, Double.parseDouble(
+            config.getProperty("flink.batch.speculative.slow.ratio", "0.75").trim()));
+        conf.set(ExecutionOptions.BATCH_SHUFFLE_MODE, BatchShuffleMode.ALL_EXCHANGES_BLOCKING);
+        LOG.info("Speculative execution enabled for slow batch tasks");
+    }
+
+    /**
+     * Latency/throughput knobs of the DataStream runtime. A buffer timeout of 0
+     * flushes every record immediately; larger values fill network buffers first.
+     */
+    private static void applyPipelineTuning(Properties config, Configuration conf) {
+        String objectReuse = config.getProperty("flink.object.reuse");
+        if (objectReuse != null && !objectReuse.trim().isEmpty()) {
+            conf.set(PipelineOptions.OBJECT_REUSE, Boolean.parseBoolean(objectReuse.trim()));
+        }
+
+        long bufferTimeout = longProperty(config, "flink.buffer.timeout", -1L);
+        if (bufferTimeout >= 0) {
+            conf.set(ExecutionOptions.BUFFER_TIMEOUT, Duration.ofMillis(bufferTimeout));
+            LOG.info("Network buffer timeout: {} ms", bufferTimeout);
+        }
+
+        String chaining = config.getProperty("flink.operator.chaining");
+        if (chaining != null && !chaining.trim().isEmpty()) {
+            conf.set(PipelineOptions.OPERATOR_CHAINING, Boolean.parseBoolean(chaining.trim()));
+        }
+    }
+
+    /**
+     * Restart strategy applied on task failure: none, fixed-delay or exponential-delay.
+     */
+    private static void applyRestartStrategy(Properties config, Configuration conf) {
+        String strategy = config.getProperty("flink.restart.strategy");
+        if (strategy == null || strategy.trim().isEmpty()) {
+            return;
+        }
+        strategy = strategy.trim().toLowerCase();
+        long delay = longProperty(config, "flink.restart.delay", 10000L);
+
+        switch (strategy) {
+            case "none":
+                conf.set(RestartStrategyOptions.RESTART_STRATEGY, "none");
+                break;
+            case "fixed-delay":
+                conf.set(RestartStrategyOptions.RESTART_STRATEGY, "fixed-delay");
+                conf.set(RestartStrategyOptions.RESTART_STRATEGY_FIXED_DELAY_ATTEMPTS,
+                    intProperty(config, "flink.restart.attempts", 3));
+                conf.set(RestartStrategyOptions.RESTART_STRATEGY_FIXED_DELAY_DELAY, Duration.ofMillis(delay));
+                break;
+            case "exponential-delay":
+                conf.set(RestartStrategyOptions.RESTART_STRATEGY, "exponential-delay");
+                conf.set(RestartStrategyOptions.RESTART_STRATEGY_EXPONENTIAL_DELAY_INITIAL_BACKOFF,
+                    Duration.ofMillis(delay));
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid flink.restart.strategy '" + strategy
+                    + "' (expected none, fixed-delay or exponential-delay)");
+        }
+        LOG.info("Restart strategy: {}", strategy);
+    }
+
+    /**
+     * Checkpointing is only enabled when flink.checkpoint.interval is positive.
+     * Flink ignores these settings for jobs running in BATCH mode.
+     */
+    private static void applyCheckpointing(Properties config, Configuration conf) {
+        long interval = longProperty(config, "flink.checkpoint.interval", 0L);
+        if (interval <= 0) {
+            LOG.info("Checkpointing disabled");
+            return;
+        }
+        conf.set(ExecutionCheckpointingOptions.CHECKPOINTING_INTERVAL, Duration.ofMillis(interval));
+
+        String mode = config.getProperty("flink.checkpoint.mode", "exactly_once").trim().toUpperCase();
+        try {
+            conf.set(ExecutionCheckpointingOptions.CHECKPOINTING_MODE, CheckpointingMode.valueOf(mode));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                "Invalid flink.checkpoint.mode '" + mode + "' (expected exactly_once or at_least_once)", e);
+        }
+
+        long timeout = longProperty(config, "flink.checkpoint.timeout", 0L);
+        if (timeout > 0) {
+            conf.set(ExecutionCheckpointingOptions.CHECKPOINTING_TIMEOUT, Duration.ofMillis(timeout));
+        }
+
+        long minPause = longProperty(config, "flink.checkpoint.min.pause", 0L);
+        if (minPause > 0) {
+            conf.set(ExecutionCheckpointingOptions.MIN_PAUSE_BETWEEN_CHECKPOINTS, Duration.ofMillis(minPause));
+        }
+
+        int maxConcurrent = intProperty(config, "flink.checkpoint.max.concurrent", 0);
+        if (maxConcurrent > 0) {
+            conf.set(ExecutionCheckpointingOptions.MAX_CONCURRENT_CHECKPOINTS, maxConcurrent);
+        }
+
+        String checkpointDir = config.getProperty("flink.checkpoint.dir", "").trim();
+        if (!checkpointDir.isEmpty()) {
+            conf.set(CheckpointingOptions.CHECKPOINTS_DIRECTORY, checkpointDir);
+        }
+
+        // Keep the latest checkpoint of a cancelled job, e.g. to inspect its state
+        if (Boolean.parseBoolean(config.getProperty("flink.checkpoint.retain", "false").trim())) {
+            conf.set(ExecutionCheckpointingOptions.EXTERNALIZED_CHECKPOINT,
+                CheckpointConfig.ExternalizedCheckpointCleanup.RETAIN_ON_CANCELLATION);
+        }
+
+        applyBackpressureTolerance(config, conf, mode);
+        LOG.info("Checkpointing every {} ms in {} mode", interval, mode);
+    }
+
+    /**
+     * Keep checkpoints completing while a slow Kafka sink backpressures the
+     * source: unaligned checkpoints let barriers overtake buffered records
+     * (switched on once alignment exceeds flink.checkpoint.aligned.timeout),
+     * and buffer debloating shrinks in-flight data to what the sink drains in
+     * flink.buffer.debloat.target ms. flink.checkpoint.preset=backpressure
+     * enables all of them in streaming mode; explicit keys win.
+     */
+    private static void applyBackpressureTolerance(Properties config, Configuration conf, String mode) {
+        String preset = config.getProperty("flink.checkpoint.preset", "none").trim().toLowerCase();
+        if (!"none".equals(preset) && !"backpressure".equals(preset)) {
+            throw new IllegalArgumentException("Invalid flink.checkpoint.preset '" + preset
+                + "' (expected none or backpressure)");
+        }
+        boolean backpressure = "backpressure".equals(preset) && isStreaming(config);
+
+        boolean unaligned = Boolean.parseBoolean(config.getProperty("flink.checkpoint.unaligned",
+            String.valueOf(backpressure)).trim());
+        if (unaligned && !"EXACTLY_ONCE".equals(mode)) {
+            LOG.warn("Unaligned checkpoints need flink.checkpoint.mode=exactly_once; keeping aligned checkpoints");
+            unaligned = false;
+        }
+        if (unaligned) {
+            conf.set(ExecutionCheckpointingOptions.ENABLE_UNALIGNED, true);
+            // Unaligned checkpoints do not support concurrent checkpoints
+            conf.set(ExecutionCheckpointingOptions.MAX_CONCURRENT_CHECKPOINTS, 1);
+            long alignedTimeout = longProperty(config, "flink.checkpoint.aligned.timeout", backpressure ? 30000L : 0L);
+            conf.set(ExecutionCheckpointingOptions.ALIGNED_CHECKPOINT_TIMEOUT, Duration.ofMillis(alignedTimeout));
+            LOG.info("Unaligned checkpoints after {} ms of alignment", alignedTimeout);
+        }
+
+        boolean debloat = Boolean.parseBoolean(config.getProperty("flink.buffer.debloat",
+            String.valueOf(backpressure)).trim());
+        if (debloat) {
+            // Task manager setting: effective for local runs, clusters read it from flink-conf.yaml
+            conf.set(TaskManagerOptions.BUFFER_DEBLOAT_ENABLED, true);
+            long target = longProperty(config, "flink.buffer.debloat.target", 1000L);
+            conf.set(TaskManagerOptions.BUFFER_DEBLOAT_TARGET, Duration.ofMillis(target));
+            LOG.info("Network buffer debloating with a {} ms target", target);
+        }
+    }
+
+    /**
+     * State backend for the stateful stages: hashmap keeps state on the heap,
+     * rocksdb spills to local disk and supports incremental checkpoints.
+     * RocksDB defaults to Flink managed memory, so its block cache and write
+     * buffers stay within taskmanager.memory.managed.fraction of each slot.
+     */
+    private static void applyStateBackend(Properties config, Configuration conf) {
+        String backend = config.getProperty("flink.state.backend", "").trim().toLowerCase();
+        if (backend.isEmpty() && ("hash".equalsIgnoreCase(config.getProperty("change.detection", "none").trim())
+                || Boolean.parseBoolean(config.getProperty("kafka.sink.upsert.diff", "false").trim()))) {
+            // Both stages hold a row per key of the table in keyed state, the diff
+            // even two plus the upsert source's normalize state; too much for the heap
+            backend = "rocksdb";
+        }
+        if (backend.isEmpty()) {
+            return;
+        }
+        if (!"hashmap".equals(backend) && !"rocksdb".equals(backend)) {
+            throw new IllegalArgumentException("Invalid flink.state.backend '" + backend
+                + "' (expected hashmap or rocksdb)");
+        }
+        conf.set(StateBackendOptions.STATE_BACKEND, backend);
+
+        String localRecovery = config.getProperty("flink.state.local.recovery", "").trim();
+        if (!localRecovery.isEmpty()) {
+            conf.set(CheckpointingOptions.LOCAL_RECOVERY, Boolean.parseBoolean(localRecovery));
+        }
+
+        if ("rocksdb".equals(backend)) {
+            conf.set(CheckpointingOptions.INCREMENTAL_CHECKPOINTS, Boolean.parseBoolean(
+                config.getProperty("flink.state.incremental", "true").trim()));
+            conf.setString("state.backend.rocksdb.memory.managed", "true");
+
+            String fixedPerSlot = config.getProperty("flink.state.rocksdb.memory.per.slot", "").trim();
+            if (!fixedPerSlot.isEmpty()) {
+                conf.setString("state.backend.rocksdb.memory.fixed-per-slot", fixedPerSlot);
+            }
+            String managedFraction = config.getProperty("flink.memory.managed.fraction", "").trim();
+            if (!managedFraction.isEmpty()) {
+                // Only takes effect where the task managers are started from this
+                // configuration (local runs); clusters read it from flink-conf.yaml
+                conf.setString("taskmanager.memory.managed.fraction", managedFraction);
+            }
+        }
+        LOG.info("State backend: {}", backend);
+    }
+
+    static int intProperty(Properties config, String key, int defaultValue) {
+        String value = config.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Property '" + key + "' must be an integer: " + value, e);
+        }
+    }
+
+    static long longProperty(Properties config, String key, long defaultValue) {
+        String value = config.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Property '" + key + "' must be a number: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example;
+
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.co.KeyedCoProcessFunction;
+import org.apache.flink.types.Row;
+import org.apache.flink.types.RowKind;
+import org.apache.flink.util.Collector;
+
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Compares the rows of the current BigQuery snapshot (first input) with the
+ * previous snapshot replayed from the compacted target topic (second input,
+ * a changelog) and emits an upsert changelog of the difference: new and
+ * changed rows as inserts/updates, keys missing from the current snapshot as
+ * deletes, which the upsert-kafka sink writes as tombstones. Unchanged rows
+ * are dropped.
+ *
+ * <p>Both inputs are bounded, so the comparison runs once per key from an
+ * event-time timer at the end of input, when the final watermark arrives.
+ */
+class SnapshotDiffFunction extends KeyedCoProcessFunction<String, Row, Row, Row> {
+    private static final long serialVersionUID = 1L;
+
+    private final TypeInformation<Row> currentType;
+    private final TypeInformation<Row> previousType;
+
+    private transient ValueState<Row> current;
+    private transient ValueState<Row> previous;
+    private transient Counter unchanged;
+    private transient Counter changed;
+    private transient Counter deleted;
+
+    SnapshotDiffFunction(TypeInformation<Row> currentType, TypeInformation<Row> previousType) {
+        this.currentType = currentType;
+        this.previousType = previousType;
+    }
+
+    @Override
+    public void open(Configuration parameters) {
+        current = getRuntimeContext().getState(new ValueStateDescriptor<>("current", currentType));
+        previous = getRuntimeContext().getState(new ValueStateDescriptor<>("previous", previousType));
+        unchanged = getRuntimeContext().getMetricGroup().counter("unchangedRows");
+        changed = getRuntimeContext().getMetricGroup().counter("changedRows");
+        deleted = getRuntimeContext().getMetricGroup().counter("deletedRows");
+    }
+
+    @Override
+    public void processElement1(Row row, Context ctx, Collector<Row> out) throws Exception {
+        current.update(row);
+        ctx.timerService().registerEventTimeTimer(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void processElement2(Row row, Context ctx, Collector<Row> out) throws Exception {
+        switch (row.getKind()) {
+            case INSERT:
+            case UPDATE_AFTER:
+                previous.update(row);
+                break;
+            case DELETE:
+                previous.clear();
+                break;
+            default:
+                // UPDATE_BEFORE is followed by its UPDATE_AFTER
+                return;
+        }
+        ctx.timerService().registerEventTimeTimer(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onTimer(long timestamp, OnTimerContext ctx, Collector<Row> out) throws Exception {
+        Row now = current.value();
+        Row before = previous.value();
+        if (now != null && before == null) {
+            changed.inc();
+            out.collect(copyAs(RowKind.INSERT, now));
+        } else if (now != null) {
+            if (sameFields(now, before)) {
+                unchanged.inc();
+            } else {
+                changed.inc();
+                out.collect(copyAs(RowKind.UPDATE_AFTER, now));
+            }
+        } else if (before != null) {
+            deleted.inc();
+            out.collect(copyAs(RowKind.DELETE, before));
+        }
+        current.clear();
+        previous.clear();
+    }
+
+    private static boolean sameFields(Row a, Row b) {
+        if (a.getArity() != b.getArity()) {
+            return false;
+        }
+        for (int i = 0; i < a.getArity(); i++) {
+            if (!Objects.deepEquals(a.getField(i), b.getField(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Row copyAs(RowKind kind, Row row) {
+        Row copy = new Row(kind, row.getArity());
+        for (int i = 0; i < row.getArity(); i++) {
+            copy.setField(i, row.getField(i));
+        }
+        return copy;
+    }
+
+    /**
+     * Key of a row built from the keyField positions. Each value is length
+     * prefixed so that different key tuples never map to the same string.
+     */
+    static class KeyFields implements KeySelector<Row, String> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] positions;
+
+        KeyFields(int[] positions) {
+            this.positions = positions;
+        }
+
+        @Override
+        public String getKey(Row row) {
+            StringBuilder key = new StringBuilder();
+            for (int position : positions) {
+                Object value = row.getField(position);
+                if (value == null) {
+                    key.append('-');
+                } else {
+                    String text = value instanceof byte[]
+                        ? Base64.getEncoder().encodeToString((byte[]) value) : value.toString();
+                    key.append(text.length()).append(':').append(text);
+                }
+            }
+            return key.toString();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example;
+
+import com.google.protobuf.CodedInputStream;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.types.logical.BigIntType;
+import org.apache.flink.table.types.logical.BooleanType;
+import org.apache.flink.table.types.logical.DateType;
+import org.apache.flink.table.types.logical.DecimalType;
+import org.apache.flink.table.types.logical.DoubleType;
+import org.apache.flink.table.types.logical.IntType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.TimestampType;
+import org.apache.flink.table.types.logical.VarBinaryType;
+import org.apache.flink.table.types.logical.VarCharType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompositeKeySerializationSchemaTest {
+    private static final RowType KEY_TYPE = RowType.of(
+        new VarCharType(VarCharType.MAX_LENGTH), new BigIntType(), new IntType(), new DateType(),
+        new TimestampType(3), new BooleanType(), new DoubleType(), new VarBinaryType(VarBinaryType.MAX_LENGTH),
+        new VarCharType(VarCharType.MAX_LENGTH));
+
+    private final CompositeKeySerializationSchema schema = new CompositeKeySerializationSchema(KEY_TYPE);
+
+    @Test
+    void roundTripsEveryType() throws IOException {
+        GenericRowData row = GenericRowData.of(
+            StringData.fromString("key-ä"), -42L, 7, 19000, TimestampData.fromEpochMillis(1700000000123L),
+            true, 2.5, new byte[] {1, 2, 3}, null);
+        byte[] key = schema.serialize(row);
+
+        // Nine columns: two bitmap bytes, only the last column is NULL
+        assertEquals(0, key[0]);
+        assertEquals(1, key[1]);
+        CodedInputStream in = CodedInputStream.newInstance(key, 2, key.length - 2);
+        assertEquals("key-ä", in.readString());
+        assertEquals(-42L, in.readSInt64());
+        assertEquals(7, in.readSInt32());
+        assertEquals(19000, in.readSInt32());
+        assertEquals(1700000000123L, in.readSInt64());
+        assertTrue(in.readBool());
+        assertEquals(2.5, in.readDouble());
+        assertArrayEquals(new byte[] {1, 2, 3}, in.readByteArray());
+        assertTrue(in.isAtEnd());
+    }
+
+    @Test
+    void nullsAreOnlyMarkedInTheBitmap() throws IOException {
+        RowType type = RowType.of(new VarCharType(VarCharType.MAX_LENGTH), new BigIntType());
+        CompositeKeySerializationSchema twoColumns = new CompositeKeySerializationSchema(type);
+
+        byte[] key = twoColumns.serialize(GenericRowData.of(null, 5L));
+        assertEquals(1, key[0]);
+        CodedInputStream in = CodedInputStream.newInstance(key, 1, key.length - 1);
+        assertEquals(5L, in.readSInt64());
+        assertTrue(in.isAtEnd());
+
+        assertArrayEquals(new byte[] {3}, twoColumns.serialize(GenericRowData.of(null, null)));
+    }
+
+    @Test
+    void distinctTuplesGiveDistinctKeys() {
+        RowType type = RowType.of(new VarCharType(VarCharType.MAX_LENGTH), new VarCharType(VarCharType.MAX_LENGTH));
+        CompositeKeySerializationSchema twoStrings = new CompositeKeySerializationSchema(type);
+
+        byte[] ab = twoStrings.serialize(GenericRowData.of(StringData.fromString("a"), StringData.fromString("bc")));
+        byte[] abc = twoStrings.serialize(GenericRowData.of(StringData.fromString("ab"), StringData.fromString("c")));
+        byte[] empty = twoStrings.serialize(GenericRowData.of(StringData.fromString(""), StringData.fromString("x")));
+        byte[] missing = twoStrings.serialize(GenericRowData.of(null, StringData.fromString("x")));
+        assertFalse(Arrays.equals(ab, abc));
+        assertNotEquals(empty[0], missing[0]);
+    }
+
+    @Test
+    void rejectsUnsupportedTypes() {
+        RowType type = RowType.of(new DecimalType(10, 2));
+        assertThrows(IllegalArgumentException.class, () -> new CompositeKeySerializationSchema(type));
+    }
+}
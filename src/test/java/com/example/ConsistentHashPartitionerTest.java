@@ -0,0 +1,97 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashPartitionerTest {
+    private static final int[] PARTITIONS = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11};
+
+    private static byte[] key(int i) {
+        return ("customer-" + i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ConsistentHashPartitioner partitioner(int subtask, int subtasks) {
+        ConsistentHashPartitioner partitioner = new ConsistentHashPartitioner();
+        partitioner.open(subtask, subtasks);
+        return partitioner;
+    }
+
+    @Test
+    void keyLandsOnTheSamePartitionFromEverySubtask() {
+        ConsistentHashPartitioner first = partitioner(0, 4);
+        ConsistentHashPartitioner last = partitioner(3, 4);
+        for (int i = 0; i < 1000; i++) {
+            int partition = first.partition(null, key(i), null, "topic", PARTITIONS);
+            assertEquals(partition, last.partition(null, key(i), null, "topic", PARTITIONS));
+            assertEquals(partition, first.partition(null, key(i), null, "topic", PARTITIONS));
+        }
+    }
+
+    @Test
+    void jumpHashStaysInRangeAndSpreadsKeys() {
+        int buckets = PARTITIONS.length;
+        int[] counts = new int[buckets];
+        int keys = 120000;
+        for (int i = 0; i < keys; i++) {
+            int bucket = ConsistentHashPartitioner.jumpHash(ConsistentHashPartitioner.hash64(key(i)), buckets);
+            assertTrue(bucket >= 0 && bucket < buckets);
+            counts[bucket]++;
+        }
+        for (int count : counts) {
+            assertTrue(Math.abs(count - keys / buckets) < keys / buckets / 10, "bucket count " + count);
+        }
+    }
+
+    @Test
+    void addingAPartitionMovesOnlyItsShareOfKeys() {
+        int keys = 100000;
+        int moved = 0;
+        for (int i = 0; i < keys; i++) {
+            long hash = ConsistentHashPartitioner.hash64(key(i));
+            int before = ConsistentHashPartitioner.jumpHash(hash, 12);
+            int after = ConsistentHashPartitioner.jumpHash(hash, 13);
+            if (before != after) {
+                // Keys only ever move to the new partition
+                assertEquals(12, after);
+                moved++;
+            }
+        }
+        assertTrue(Math.abs(moved - keys / 13) < keys / 13 / 10, "moved " + moved);
+    }
+
+    @Test
+    void keylessRecordsStayInTheSubtaskSlice() {
+        Set<Integer> seen = new HashSet<>();
+        for (int subtask = 0; subtask < 4; subtask++) {
+            ConsistentHashPartitioner partitioner = partitioner(subtask, 4);
+            Set<Integer> slice = new HashSet<>();
+            for (int i = 0; i < 100; i++) {
+                slice.add(partitioner.partition(null, null, null, "topic", PARTITIONS));
+            }
+            assertEquals(3, slice.size());
+            for (int partition : slice) {
+                assertTrue(partition >= subtask * 3 && partition < subtask * 3 + 3);
+            }
+            seen.addAll(slice);
+        }
+        assertEquals(PARTITIONS.length, seen.size());
+    }
+
+    @Test
+    void moreSubtasksThanPartitionsStillYieldValidPartitions() {
+        int[] partitions = {0, 1, 2};
+        for (int subtask = 0; subtask < 8; subtask++) {
+            ConsistentHashPartitioner partitioner = partitioner(subtask, 8);
+            for (int i = 0; i < 10; i++) {
+                int partition = partitioner.partition(null, new byte[0], null, "topic", partitions);
+                assertTrue(partition >= 0 && partition < partitions.length);
+            }
+        }
+    }
+}
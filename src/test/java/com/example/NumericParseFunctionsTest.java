@@ -0,0 +1,119 @@
+package com.example;
+
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.table.data.StringData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NumericParseFunctionsTest {
+    private NumericParseFunctions.ParseDouble parseDouble;
+    private NumericParseFunctions.ParseBigint parseBigint;
+
+    @BeforeEach
+    void setUp() {
+        parseDouble = new NumericParseFunctions.ParseDouble();
+        parseDouble.malformed = new SimpleCounter();
+        parseBigint = new NumericParseFunctions.ParseBigint();
+        parseBigint.malformed = new SimpleCounter();
+    }
+
+    private Double parseDouble(String value) {
+        return parseDouble.eval(value == null ? null : StringData.fromString(value));
+    }
+
+    private Long parseBigint(String value) {
+        return parseBigint.eval(value == null ? null : StringData.fromString(value));
+    }
+
+    @Test
+    void parsesPlainDecimals() {
+        assertEquals(12.5, parseDouble("12.5"));
+        assertEquals(-0.001, parseDouble("-0.001"));
+        assertEquals(42.0, parseDouble("+42"));
+        assertEquals(1.0, parseDouble("1."));
+        assertEquals(0.5, parseDouble(".5"));
+        assertEquals(1.5e10, parseDouble("1.5e10"));
+        assertEquals(2.5e-3, parseDouble("25E-4"));
+        assertEquals(0, parseDouble.malformed.getCount());
+    }
+
+    @Test
+    void matchesDoubleParseDoubleOutsideFastPath() {
+        for (String value : new String[] {"3.14159265358979323846", "1e300", "-4.9e-324", "123456789012345678"}) {
+            assertEquals(Double.parseDouble(value), parseDouble(value), value);
+        }
+    }
+
+    @Test
+    void parsesSpecialValues() {
+        assertTrue(parseDouble("NaN").isNaN());
+        assertEquals(Double.POSITIVE_INFINITY, parseDouble("Infinity"));
+        assertEquals(Double.NEGATIVE_INFINITY, parseDouble("-Infinity"));
+    }
+
+    @Test
+    void blankValuesAreNullButNotMalformed() {
+        assertNull(parseDouble(null));
+        assertNull(parseDouble(""));
+        assertNull(parseDouble(" \t "));
+        assertNull(parseBigint("  "));
+        assertEquals(0, parseDouble.malformed.getCount());
+        assertEquals(0, parseBigint.malformed.getCount());
+    }
+
+    @Test
+    void trimsAsciiWhitespaceOnly() {
+        assertEquals(7.0, parseDouble("  7 "));
+        assertEquals(7L, parseBigint("\t7\n"));
+        assertNull(parseDouble("12€"));
+        assertNull(parseDouble("€12"));
+        assertNull(parseDouble("€"));
+        assertNull(parseBigint("12€"));
+        assertNull(parseBigint("€12"));
+        assertEquals(3, parseDouble.malformed.getCount());
+        assertEquals(2, parseBigint.malformed.getCount());
+    }
+
+    @Test
+    void malformedDoublesAreCounted() {
+        String[] values = {"N/A", "12abc", "abc", ".", "-", "1e", "1e+", "1.2.3", "0x10", "1d"};
+        for (String value : values) {
+            assertNull(parseDouble(value), value);
+        }
+        assertEquals(values.length, parseDouble.malformed.getCount());
+    }
+
+    @Test
+    void parsesBigints() {
+        assertEquals(0L, parseBigint("0"));
+        assertEquals(-17L, parseBigint("-17"));
+        assertEquals(12L, parseBigint("12.99"));
+        assertEquals(Long.MAX_VALUE, parseBigint("9223372036854775807"));
+        assertEquals(Long.MIN_VALUE, parseBigint("-9223372036854775808"));
+        assertEquals(0, parseBigint.malformed.getCount());
+    }
+
+    @Test
+    void malformedBigintsAreCounted() {
+        String[] values = {"9223372036854775808", "-9223372036854775809", "N/A", "1e3", "-", "12a", "1.2.3"};
+        for (String value : values) {
+            assertNull(parseBigint(value), value);
+        }
+        assertEquals(values.length, parseBigint.malformed.getCount());
+    }
+
+    @Test
+    void failOnMalformedThrowsOnlyForNonBlankValues() {
+        StringData malformed = StringData.fromString("N/A");
+        assertThrows(NumberFormatException.class, () -> parseDouble.eval(malformed, true));
+        assertThrows(NumberFormatException.class, () -> parseBigint.eval(malformed, true));
+        assertNull(parseDouble.eval(StringData.fromString("  "), true));
+        assertNull(parseBigint.eval(null, true));
+        assertEquals(3.5, parseDouble.eval(StringData.fromString("3.5"), true));
+    }
+}